@@ -42,6 +42,14 @@ public class HashRepository<K, V> implements Repository<K, V> {
         lock.unlock();
     }
 
+    @Override
+    public void removeValue(K key) {
+        final Lock lock = lockManager.writeLock();
+        lock.lock();
+        cache.remove(key);
+        lock.unlock();
+    }
+
     @Override
     public void close() throws IOException {
         flush();
@@ -1,28 +1,17 @@
 package org.ml_methods_group.classification;
 
 import org.ml_methods_group.common.DistanceFunction;
-import org.ml_methods_group.common.Wrapper;
+import org.ml_methods_group.common.metrics.algorithms.NearestNeighbours;
 
 import java.util.List;
-import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class ClassificationUtils {
     public static <V> List<V> kNearest(V value, List<V> targets, int k, DistanceFunction<V> metric) {
-        double bound = Double.POSITIVE_INFINITY;
-        final TreeSet<Wrapper<Double, Integer>> heap = new TreeSet<>(Wrapper::compare);
-        for (int i = 0; i < targets.size(); i++) {
-            final double distance = metric.distance(value, targets.get(i), bound);
-            if (heap.size() < k) {
-                heap.add(new Wrapper<>(distance, i));
-            } else if (distance < bound) {
-                heap.add(new Wrapper<>(distance, i));
-                heap.pollLast();
-                bound = heap.last().getFeatures();
-            }
-        }
-        return heap.stream()
-                .mapToInt(Wrapper::getMeta)
+        final NearestNeighbours neighbours = NearestNeighbours.search(value, targets, k, metric);
+        return IntStream.range(0, neighbours.size())
+                .map(neighbours::getIndex)
                 .mapToObj(targets::get)
                 .collect(Collectors.toList());
     }
@@ -1,13 +1,16 @@
 package org.ml_methods_group.classification.classifiers;
 
-import org.ml_methods_group.classification.ClassificationUtils;
 import org.ml_methods_group.common.*;
+import org.ml_methods_group.common.metrics.algorithms.NearestNeighbours;
+import org.ml_methods_group.common.metrics.functions.DenseVectors;
+import org.ml_methods_group.common.metrics.functions.FunctionsUtils;
+import org.ml_methods_group.common.metrics.index.CandidatesIndex;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.stream.IntStream;
 import java.util.stream.Collectors;
 
 public class KNearestNeighbors<T, M> implements Classifier<T, M> {
@@ -15,10 +18,39 @@ public class KNearestNeighbors<T, M> implements Classifier<T, M> {
     private final Map<T, M> marks = new HashMap<>();
     private final List<T> samples = new ArrayList<>();
     private final DistanceFunction<T> metric;
+    private final CandidatesIndex<T> index;
+    private final FeaturesExtractor<T, double[]> vectorizer;
+    private final boolean singlePrecision;
+    private DenseVectors vectors;
 
     public KNearestNeighbors(int k, DistanceFunction<T> metric) {
+        this(k, metric, null);
+    }
+
+    /**
+     * Only candidates of the index are scanned, unless there are less than k of them.
+     */
+    public KNearestNeighbors(int k, DistanceFunction<T> metric, CandidatesIndex<T> index) {
+        this(k, metric, index, null, false);
+    }
+
+    /**
+     * Cosine distances from value to all samples are evaluated by one scan of {@link DenseVectors}.
+     *
+     * @param singlePrecision samples are stored as floats
+     */
+    public KNearestNeighbors(int k, FeaturesExtractor<T, double[]> vectorizer, boolean singlePrecision) {
+        this(k, (a, b) -> FunctionsUtils.cosineDistance(vectorizer.process(a), vectorizer.process(b)), null,
+                vectorizer, singlePrecision);
+    }
+
+    private KNearestNeighbors(int k, DistanceFunction<T> metric, CandidatesIndex<T> index,
+                              FeaturesExtractor<T, double[]> vectorizer, boolean singlePrecision) {
         this.k = k;
         this.metric = metric;
+        this.index = index;
+        this.vectorizer = vectorizer;
+        this.singlePrecision = singlePrecision;
     }
 
     @Override
@@ -27,16 +59,39 @@ public class KNearestNeighbors<T, M> implements Classifier<T, M> {
         marks.putAll(train.getFlatMarks());
         samples.clear();
         samples.addAll(marks.keySet());
+        if (index != null) {
+            index.build(samples);
+        }
+        vectors = vectorizer == null || samples.isEmpty() ? null : DenseVectors.of(samples.stream()
+                .map(vectorizer::process)
+                .collect(Collectors.toList()), singlePrecision);
     }
 
     @Override
     public Map<M, Double> reliability(T value) {
-        return ClassificationUtils.kNearest(value, samples, k, metric)
-                .stream()
-                .collect(Collectors.toMap(marks::get, x -> 1 - metric.distance(value, x),
-                        Double::sum))
-                .entrySet()
-                .stream()
-                .collect(Collectors.toMap(Entry::getKey, entry -> entry.getValue() / k));
+        final List<T> candidates = getCandidates(value);
+        final NearestNeighbours neighbours = vectors == null
+                ? NearestNeighbours.search(value, candidates, k, metric)
+                : NearestNeighbours.select(vectors.cosineDistances(vectorizer.process(value)), k);
+        final Map<M, Double> result = new HashMap<>();
+        for (int i = 0; i < neighbours.size(); i++) {
+            result.merge(marks.get(candidates.get(neighbours.getIndex(i))), 1 - neighbours.getDistance(i),
+                    Double::sum);
+        }
+        result.replaceAll((mark, sum) -> sum / k);
+        return result;
+    }
+
+    private List<T> getCandidates(T value) {
+        if (index == null) {
+            return samples;
+        }
+        final int[] candidates = index.getCandidates(value);
+        if (candidates.length < k) {
+            return samples;
+        }
+        return IntStream.of(candidates)
+                .mapToObj(samples::get)
+                .collect(Collectors.toList());
     }
 }
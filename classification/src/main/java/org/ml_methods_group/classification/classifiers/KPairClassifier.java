@@ -1,7 +1,7 @@
 package org.ml_methods_group.classification.classifiers;
 
-import org.ml_methods_group.classification.ClassificationUtils;
 import org.ml_methods_group.common.*;
+import org.ml_methods_group.common.metrics.selectors.ClosestPairSelector;
 
 import java.util.List;
 import java.util.Map;
@@ -9,9 +9,8 @@ import java.util.function.DoubleBinaryOperator;
 
 public class KPairClassifier<V, F, M> implements Classifier<V, M> {
 
-    private final List<V> options;
+    private final MultipleOptionSelector<V, V> selector;
     private final int k;
-    private final DistanceFunction<V> metric;
     private final DoubleBinaryOperator combiner;
     private final FeaturesExtractor<V, F> trainExtractor;
     private final BiFeaturesExtractor<V, V, F> testExtractor;
@@ -23,9 +22,16 @@ public class KPairClassifier<V, F, M> implements Classifier<V, M> {
                            DoubleBinaryOperator combiner, FeaturesExtractor<V, F> trainExtractor,
                            BiFeaturesExtractor<V, V, F> testExtractor,
                            Classifier<F, M> classifier) {
-        this.options = options;
+        this(new ClosestPairSelector<>(options, metric), k, combiner, trainExtractor, testExtractor, classifier);
+    }
+
+    public KPairClassifier(MultipleOptionSelector<V, V> selector,
+                           int k,
+                           DoubleBinaryOperator combiner, FeaturesExtractor<V, F> trainExtractor,
+                           BiFeaturesExtractor<V, V, F> testExtractor,
+                           Classifier<F, M> classifier) {
+        this.selector = selector;
         this.k = k;
-        this.metric = metric;
         this.combiner = combiner;
         this.trainExtractor = trainExtractor;
         this.testExtractor = testExtractor;
@@ -39,7 +45,7 @@ public class KPairClassifier<V, F, M> implements Classifier<V, M> {
 
     @Override
     public Map<M, Double> reliability(V value) {
-        final List<V> options = ClassificationUtils.kNearest(value, this.options, k, metric);
+        final List<V> options = selector.selectOptions(value, k);
         Map<M, Double> result = classifier.reliability(testExtractor.process(value, options.get(0)));
         for (V option : options.subList(1, options.size())) {
             final Map<M, Double> current = classifier.reliability(testExtractor.process(value, option));
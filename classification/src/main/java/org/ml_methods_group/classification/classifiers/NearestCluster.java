@@ -2,23 +2,53 @@ package org.ml_methods_group.classification.classifiers;
 
 import org.ml_methods_group.common.*;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.Serializable;
+import java.util.*;
 import java.util.Map.Entry;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class NearestCluster<V, M> implements Classifier<V, M> {
+    private static final int MEDOID_CANDIDATES = 64;
+    private static final long SEED = 239;
+
     private final Map<Cluster<V>, M> clusters = new HashMap<>();
+    private final List<IndexedCluster<V, M>> indexed = new ArrayList<>();
     private final DistanceFunction<V> metric;
     private final boolean mergeClusters;
+    private final boolean useIndex;
+    private final int sampleSize;
 
     public NearestCluster(DistanceFunction<V> metric) {
         this(metric, false);
     }
 
     public NearestCluster(DistanceFunction<V> metric, boolean mergeClusters) {
+        this(metric, mergeClusters, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Clusters are indexed by medoids and sorted distances from medoid to elements. By triangle inequality
+     * they give lower and upper bounds of average distance, so {@link #mostProbable} and {@link #classify}
+     * evaluate average only for clusters, which can win. {@link #reliability} still evaluates all clusters.
+     * Metric should satisfy triangle inequality.
+     *
+     * @param sampleSize average distance to bigger clusters is estimated by fixed random sample of elements
+     *                   and clamped by the bounds. By Hoeffding's inequality the error exceeds
+     *                   t * 2 * radius with probability at most 2 * exp(-2 * sampleSize * t^2)
+     */
+    public NearestCluster(DistanceFunction<V> metric, boolean mergeClusters, int sampleSize) {
+        this(metric, mergeClusters, true, sampleSize);
+    }
+
+    private NearestCluster(DistanceFunction<V> metric, boolean mergeClusters, boolean useIndex, int sampleSize) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("Sample size should be positive: " + sampleSize);
+        }
         this.metric = metric;
         this.mergeClusters = mergeClusters;
+        this.useIndex = useIndex;
+        this.sampleSize = sampleSize;
     }
 
     @Override
@@ -31,21 +61,184 @@ public class NearestCluster<V, M> implements Classifier<V, M> {
                     .collect(Collectors.toMap(Entry::getValue, Entry::getKey, Cluster::merge))
                     .forEach((key, value) -> clusters.put(value, key));
         }
+        indexed.clear();
+        if (useIndex) {
+            indexed.addAll(clusters.entrySet().parallelStream()
+                    .filter(entry -> entry.getKey().size() != 0)
+                    .map(entry -> new IndexedCluster<>(entry.getKey(), entry.getValue(), metric, sampleSize))
+                    .collect(Collectors.toList()));
+        }
     }
 
 
     @Override
     public Map<M, Double> reliability(V value) {
+        if (useIndex) {
+            return indexed.parallelStream()
+                    .collect(Collectors.toMap(cluster -> cluster.mark,
+                            cluster -> reliability(cluster.averageDistance(value,
+                                    metric.distance(value, cluster.medoid), Double.POSITIVE_INFINITY, metric)),
+                            Math::max));
+        }
         return clusters.entrySet()
                 .stream()
                 .collect(Collectors.toMap(Entry::getValue, e -> estimateReliability(value, e.getKey()),
                         Math::max));
     }
 
+    @Override
+    public Optional<M> classify(V value) {
+        if (useIndex) {
+            return indexed.isEmpty() ? Optional.empty() : Optional.of(indexedMostProbable(value).getKey());
+        }
+        return Classifier.super.classify(value);
+    }
+
+    @Override
+    public Entry<M, Double> mostProbable(V value) {
+        if (useIndex) {
+            return indexedMostProbable(value);
+        }
+        return Classifier.super.mostProbable(value);
+    }
+
     private double estimateReliability(V value, Cluster<V> cluster) {
-        return 1 - 2 / Math.PI * Math.atan(cluster.stream()
+        return reliability(cluster.stream()
                 .mapToDouble(element -> metric.distance(value, element))
                 .average()
                 .orElseThrow(RuntimeException::new));
     }
+
+    private static double reliability(double averageDistance) {
+        return 1 - 2 / Math.PI * Math.atan(averageDistance);
+    }
+
+    private Entry<M, Double> indexedMostProbable(V value) {
+        if (indexed.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        final double[] toMedoids = indexed.parallelStream()
+                .mapToDouble(cluster -> metric.distance(value, cluster.medoid))
+                .toArray();
+        final double[] lowerBounds = new double[indexed.size()];
+        double bestUpperBound = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < indexed.size(); i++) {
+            final double upperBound = indexed.get(i).upperBound(toMedoids[i]);
+            // min protects from rounding errors, so the cluster with the best upper bound is always a candidate
+            lowerBounds[i] = Math.min(indexed.get(i).lowerBound(toMedoids[i]), upperBound);
+            bestUpperBound = Math.min(bestUpperBound, upperBound);
+        }
+        final double limit = bestUpperBound;
+        final int[] candidates = IntStream.range(0, indexed.size())
+                .filter(i -> lowerBounds[i] <= limit)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> lowerBounds[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        IndexedCluster<V, M> bestCluster = null;
+        double best = Double.POSITIVE_INFINITY;
+        for (int i : candidates) {
+            if (lowerBounds[i] > best) {
+                break;
+            }
+            final IndexedCluster<V, M> cluster = indexed.get(i);
+            final double average = cluster.averageDistance(value, toMedoids[i], best, metric);
+            if (bestCluster == null || average < best) {
+                best = average;
+                bestCluster = cluster;
+            }
+        }
+        return new AbstractMap.SimpleEntry<>(bestCluster.mark, reliability(best));
+    }
+
+    private static class IndexedCluster<V, M> implements Serializable {
+        private final M mark;
+        private final V medoid;
+        private final List<V> sample;
+        private final double[] fromMedoid;
+        private final double[] sortedFromMedoid;
+        private final double[] prefixSums;
+        private final boolean isSampled;
+
+        private IndexedCluster(Cluster<V> cluster, M mark, DistanceFunction<V> metric, int sampleSize) {
+            final List<V> elements = cluster.elementsCopy();
+            Collections.shuffle(elements, new Random(SEED));
+            this.mark = mark;
+            this.medoid = findMedoid(elements, metric);
+            this.isSampled = elements.size() > sampleSize;
+            this.sample = isSampled ? new ArrayList<>(elements.subList(0, sampleSize)) : elements;
+            this.fromMedoid = sample.stream()
+                    .mapToDouble(element -> metric.distance(medoid, element))
+                    .toArray();
+            this.sortedFromMedoid = elements.stream()
+                    .mapToDouble(element -> metric.distance(medoid, element))
+                    .sorted()
+                    .toArray();
+            this.prefixSums = new double[sortedFromMedoid.length + 1];
+            for (int i = 0; i < sortedFromMedoid.length; i++) {
+                prefixSums[i + 1] = prefixSums[i] + sortedFromMedoid[i];
+            }
+        }
+
+        // element of random subset with the smallest total distance to all elements
+        private static <V> V findMedoid(List<V> elements, DistanceFunction<V> metric) {
+            V medoid = null;
+            double bestSum = Double.POSITIVE_INFINITY;
+            for (V candidate : elements.subList(0, Math.min(elements.size(), MEDOID_CANDIDATES))) {
+                double sum = 0;
+                for (V element : elements) {
+                    sum += metric.distance(candidate, element, bestSum - sum);
+                    if (sum >= bestSum) {
+                        break;
+                    }
+                }
+                if (sum < bestSum) {
+                    bestSum = sum;
+                    medoid = candidate;
+                }
+            }
+            return medoid;
+        }
+
+        // average of |d(value, medoid) - d(medoid, element)| over elements
+        private double lowerBound(double toMedoid) {
+            final int size = sortedFromMedoid.length;
+            int closer = Arrays.binarySearch(sortedFromMedoid, toMedoid);
+            if (closer < 0) {
+                closer = -closer - 1;
+            }
+            final double below = closer * toMedoid - prefixSums[closer];
+            final double above = prefixSums[size] - prefixSums[closer] - (size - closer) * toMedoid;
+            return (below + above) / size;
+        }
+
+        private double upperBound(double toMedoid) {
+            return toMedoid + prefixSums[sortedFromMedoid.length] / sortedFromMedoid.length;
+        }
+
+        /**
+         * @return average distance, or any value greater than bound, if average is greater than bound.
+         * For sampled cluster estimation of average is returned
+         */
+        private double averageDistance(V value, double toMedoid, double bound, DistanceFunction<V> metric) {
+            final int size = sample.size();
+            double remainingLowerBound = 0;
+            for (double distance : fromMedoid) {
+                remainingLowerBound += Math.abs(toMedoid - distance);
+            }
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += metric.distance(value, sample.get(i));
+                remainingLowerBound -= Math.abs(toMedoid - fromMedoid[i]);
+                if (!isSampled && (sum + remainingLowerBound) / size > bound) {
+                    return Double.POSITIVE_INFINITY;
+                }
+            }
+            final double average = sum / size;
+            if (!isSampled) {
+                return average;
+            }
+            return Math.max(lowerBound(toMedoid), Math.min(upperBound(toMedoid), average));
+        }
+    }
 }
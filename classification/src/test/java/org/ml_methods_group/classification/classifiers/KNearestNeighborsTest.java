@@ -0,0 +1,104 @@
+package org.ml_methods_group.classification.classifiers;
+
+import org.junit.Test;
+import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.MarkedClusters;
+import org.ml_methods_group.common.metrics.functions.FunctionsUtils;
+import org.ml_methods_group.common.metrics.functions.SortedJaccardDistanceFunction;
+import org.ml_methods_group.common.metrics.index.MinHashIndex;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KNearestNeighborsTest {
+
+    private static long[] perturb(long[] base, Random random) {
+        final long[] value = base.clone();
+        value[random.nextInt(value.length)] = random.nextInt(1000);
+        Arrays.sort(value);
+        return value;
+    }
+
+    @Test
+    public void testCandidatesIndex() {
+        final Random random = new Random(239);
+        final List<long[]> bases = new ArrayList<>();
+        final Map<Cluster<long[]>, String> marks = new HashMap<>();
+        for (int group = 0; group < 40; group++) {
+            final long[] base = random.longs(20, 0, 1000).toArray();
+            bases.add(base);
+            final List<long[]> elements = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                elements.add(perturb(base, random));
+            }
+            marks.put(new Cluster<>(elements), "mark_" + group);
+        }
+        final MarkedClusters<long[], String> train = new MarkedClusters<>(marks);
+        final AtomicInteger evaluations = new AtomicInteger();
+        final DistanceFunction<long[]> metric = new SortedJaccardDistanceFunction();
+        final DistanceFunction<long[]> counting = (a, b) -> {
+            evaluations.incrementAndGet();
+            return metric.distance(a, b);
+        };
+        final KNearestNeighbors<long[], String> exact = new KNearestNeighbors<>(5, metric);
+        final KNearestNeighbors<long[], String> indexed = new KNearestNeighbors<>(5, counting,
+                new MinHashIndex<>(x -> x, 20, 3));
+        exact.train(train);
+        indexed.train(train);
+        for (long[] base : bases) {
+            final long[] value = perturb(base, random);
+            final Map.Entry<String, Double> expected = exact.mostProbable(value);
+            final Map.Entry<String, Double> actual = indexed.mostProbable(value);
+            assertEquals(expected.getKey(), actual.getKey());
+            assertEquals(expected.getValue(), actual.getValue(), 1e-9);
+        }
+        assertTrue(evaluations.get() < bases.size() * 400 / 4);
+    }
+
+    @Test
+    public void testDenseVectors() {
+        final Random random = new Random(239);
+        final Map<Cluster<double[]>, String> marks = new HashMap<>();
+        for (int group = 0; group < 20; group++) {
+            final List<double[]> elements = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                elements.add(random.doubles(17).map(x -> x - 0.5).toArray());
+            }
+            marks.put(new Cluster<>(elements), "mark_" + group);
+        }
+        final MarkedClusters<double[], String> train = new MarkedClusters<>(marks);
+        final KNearestNeighbors<double[], String> scan = new KNearestNeighbors<>(5,
+                FunctionsUtils::cosineDistance);
+        final KNearestNeighbors<double[], String> doubles = new KNearestNeighbors<>(5, x -> x, false);
+        final KNearestNeighbors<double[], String> floats = new KNearestNeighbors<>(5, x -> x, true);
+        scan.train(train);
+        doubles.train(train);
+        floats.train(train);
+        for (int i = 0; i < 50; i++) {
+            final double[] value = random.doubles(17).map(x -> x - 0.5).toArray();
+            final Map<String, Double> expected = scan.reliability(value);
+            assertEquals(expected.keySet(), doubles.reliability(value).keySet());
+            expected.forEach((mark, reliability) ->
+                    assertEquals(reliability, doubles.reliability(value).get(mark), 1e-9));
+            floats.reliability(value).forEach((mark, reliability) ->
+                    assertEquals(expected.getOrDefault(mark, 0.0), reliability, 1e-5));
+        }
+    }
+
+    @Test
+    public void testFewCandidates() {
+        final Map<Cluster<long[]>, String> marks = new HashMap<>();
+        marks.put(new Cluster<>(new ArrayList<>(Arrays.asList(new long[]{1, 2, 3}, new long[]{1, 2, 4}))), "a");
+        marks.put(new Cluster<>(new ArrayList<>(Collections.singletonList(new long[]{7, 8, 9}))), "b");
+        final KNearestNeighbors<long[], String> classifier = new KNearestNeighbors<>(3,
+                new SortedJaccardDistanceFunction(), new MinHashIndex<>(x -> x, 4, 2));
+        classifier.train(new MarkedClusters<>(marks));
+        // no candidates at all, so all samples are scanned
+        final Map<String, Double> reliability = classifier.reliability(new long[]{100, 200, 300});
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), reliability.keySet());
+    }
+}
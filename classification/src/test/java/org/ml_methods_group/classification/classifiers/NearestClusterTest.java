@@ -0,0 +1,91 @@
+package org.ml_methods_group.classification.classifiers;
+
+import org.junit.Test;
+import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.MarkedClusters;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NearestClusterTest {
+
+    private static final DistanceFunction<double[]> METRIC = (a, b) -> Math.hypot(a[0] - b[0], a[1] - b[1]);
+
+    private static MarkedClusters<double[], String> generateClusters(Random random) {
+        final Map<Cluster<double[]>, String> marks = new HashMap<>();
+        for (int i = 0; i < 30; i++) {
+            final double x = random.nextDouble() * 100;
+            final double y = random.nextDouble() * 100;
+            final List<double[]> elements = new ArrayList<>();
+            for (int j = 0; j < 50; j++) {
+                elements.add(new double[]{x + random.nextGaussian() * 2, y + random.nextGaussian() * 2});
+            }
+            marks.put(new Cluster<>(elements), "mark_" + i % 20);
+        }
+        return new MarkedClusters<>(marks);
+    }
+
+    @Test
+    public void testSameAsFullScan() {
+        final Random random = new Random(239);
+        final MarkedClusters<double[], String> train = generateClusters(random);
+        final AtomicInteger evaluations = new AtomicInteger();
+        final DistanceFunction<double[]> counting = (a, b) -> {
+            evaluations.incrementAndGet();
+            return METRIC.distance(a, b);
+        };
+        final NearestCluster<double[], String> exact = new NearestCluster<>(METRIC);
+        final NearestCluster<double[], String> indexed = new NearestCluster<>(counting, false, Integer.MAX_VALUE);
+        exact.train(train);
+        indexed.train(train);
+        evaluations.set(0);
+        for (int i = 0; i < 100; i++) {
+            final double[] value = {random.nextDouble() * 100, random.nextDouble() * 100};
+            final Map.Entry<String, Double> expected = exact.mostProbable(value);
+            final Map.Entry<String, Double> actual = indexed.mostProbable(value);
+            assertEquals(expected.getKey(), actual.getKey());
+            assertEquals(expected.getValue(), actual.getValue(), 1e-9);
+        }
+        assertTrue(evaluations.get() < 100 * 30 * 50 / 2);
+    }
+
+    @Test
+    public void testSampledAverage() {
+        final Random random = new Random(239);
+        final MarkedClusters<double[], String> train = generateClusters(random);
+        final NearestCluster<double[], String> exact = new NearestCluster<>(METRIC);
+        final NearestCluster<double[], String> sampled = new NearestCluster<>(METRIC, false, 20);
+        exact.train(train);
+        sampled.train(train);
+        for (int i = 0; i < 100; i++) {
+            final double[] value = {random.nextDouble() * 100, random.nextDouble() * 100};
+            final double expected = exact.mostProbable(value).getValue();
+            final double actual = sampled.mostProbable(value).getValue();
+            assertEquals(expected, actual, 0.05);
+        }
+    }
+
+    @Test
+    public void testReliabilityContainsAllMarks() {
+        final Random random = new Random(239);
+        final MarkedClusters<double[], String> train = generateClusters(random);
+        final NearestCluster<double[], String> exact = new NearestCluster<>(METRIC);
+        final NearestCluster<double[], String> indexed = new NearestCluster<>(METRIC, false, Integer.MAX_VALUE);
+        exact.train(train);
+        indexed.train(train);
+        for (int i = 0; i < 20; i++) {
+            final double[] value = {random.nextDouble() * 100, random.nextDouble() * 100};
+            final Map<String, Double> expected = exact.reliability(value);
+            final Map<String, Double> actual = indexed.reliability(value);
+            assertEquals(expected.keySet(), actual.keySet());
+            for (String mark : expected.keySet()) {
+                assertEquals(expected.get(mark), actual.get(mark), 1e-9);
+            }
+            assertEquals(exact.classify(value), indexed.classify(value));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.Clusterer;
+import org.ml_methods_group.common.Clusters;
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Canopy clustering (McCallum, Nigam, Ungar 2000): values are split into overlapping canopies by cheap metric,
+ * then expensive clusterer runs inside every canopy. Canopy contains all values closer than loose threshold
+ * to its center, values closer than tight threshold can't become centers. Canopies overlap, so clusters
+ * of different canopies, which share a value, are merged into one cluster.
+ * Canopies are clustered one by one: the expensive clusterer is expected to be parallel itself.
+ */
+public class CanopyClusterer<V> implements Clusterer<V> {
+
+    private final DistanceFunction<V> cheapMetric;
+    private final double looseThreshold;
+    private final double tightThreshold;
+    private final Supplier<Clusterer<V>> clusterers;
+
+    /**
+     * @param clusterers creates clusterer for every canopy
+     */
+    public CanopyClusterer(DistanceFunction<V> cheapMetric, double looseThreshold, double tightThreshold,
+                           Supplier<Clusterer<V>> clusterers) {
+        if (tightThreshold > looseThreshold) {
+            throw new IllegalArgumentException("Tight threshold " + tightThreshold
+                    + " is greater than loose threshold " + looseThreshold);
+        }
+        this.cheapMetric = cheapMetric;
+        this.looseThreshold = looseThreshold;
+        this.tightThreshold = tightThreshold;
+        this.clusterers = clusterers;
+    }
+
+    @Override
+    public Clusters<V> buildClusters(List<V> values) {
+        final int[] owners = new int[values.size()];
+        Arrays.fill(owners, -1);
+        final List<int[]> canopies = new ArrayList<>();
+        for (int center = 0; center < values.size(); center++) {
+            if (owners[center] == -1) {
+                canopies.add(buildCanopy(values, center, canopies.size(), owners));
+            }
+        }
+        final Map<V, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            indexes.put(values.get(i), i);
+        }
+        final int[] parents = IntStream.range(0, values.size()).toArray();
+        for (int[] canopy : canopies) {
+            final List<V> canopyValues = Arrays.stream(canopy)
+                    .mapToObj(values::get)
+                    .collect(Collectors.toList());
+            for (Cluster<V> cluster : clusterers.get().buildClusters(canopyValues).getClusters()) {
+                final int root = find(parents, indexes.get(cluster.getElements().get(0)));
+                for (V value : cluster) {
+                    parents[find(parents, indexes.get(value))] = root;
+                }
+            }
+        }
+        final Map<Integer, List<V>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            groups.computeIfAbsent(find(parents, i), x -> new ArrayList<>()).add(values.get(i));
+        }
+        return new Clusters<>(groups.values().stream()
+                .map(Cluster::new)
+                .collect(Collectors.toList()));
+    }
+
+    private int[] buildCanopy(List<V> values, int center, int canopy, int[] owners) {
+        final V centerValue = values.get(center);
+        final double[] distances = IntStream.range(0, values.size())
+                .parallel()
+                .mapToDouble(i -> cheapMetric.distance(centerValue, values.get(i), looseThreshold))
+                .toArray();
+        owners[center] = canopy;
+        final int[] members = new int[values.size()];
+        int size = 0;
+        for (int i = 0; i < values.size(); i++) {
+            if (i == center || distances[i] < looseThreshold) {
+                members[size++] = i;
+                if (owners[i] == -1 && distances[i] < tightThreshold) {
+                    owners[i] = canopy;
+                }
+            }
+        }
+        return Arrays.copyOf(members, size);
+    }
+
+    private static int find(int[] parents, int index) {
+        int root = index;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        while (parents[index] != root) {
+            final int next = parents[index];
+            parents[index] = root;
+            index = next;
+        }
+        return root;
+    }
+}
@@ -2,7 +2,9 @@ package org.ml_methods_group.clustering.clusterers;
 
 import org.ml_methods_group.common.Clusterer;
 import org.ml_methods_group.common.Clusters;
+import org.ml_methods_group.common.Dendrogram;
 import org.ml_methods_group.common.FeaturesExtractor;
+import org.ml_methods_group.common.HierarchicalClusterer;
 import org.ml_methods_group.common.Wrapper;
 import org.ml_methods_group.common.parallel.ParallelContext;
 import org.ml_methods_group.common.parallel.ParallelUtils;
@@ -22,16 +24,34 @@ public class CompositeClusterer<V, F> implements Clusterer<V> {
 
     @Override
     public Clusters<V> buildClusters(List<V> values) {
+        return clusterer.buildClusters(wrap(values))
+                .map(Wrapper::getMeta);
+    }
+
+    public boolean isHierarchical() {
+        return clusterer instanceof HierarchicalClusterer;
+    }
+
+    /**
+     * Can be used only if underlying clusterer is hierarchical
+     */
+    @SuppressWarnings("unchecked")
+    public Dendrogram<V> buildDendrogram(List<V> values) {
+        if (!isHierarchical()) {
+            throw new IllegalStateException("Clusterer doesn't build dendrograms: " + clusterer.getClass());
+        }
+        return ((HierarchicalClusterer<Wrapper<F, V>>) clusterer).buildDendrogram(wrap(values))
+                .map(Wrapper::getMeta);
+    }
+
+    private List<Wrapper<F, V>> wrap(List<V> values) {
         final Function<V, Wrapper<F, V>> processor = Wrapper.wrap(featuresExtractor::process);
-        final List<Wrapper<F, V>> wrappers;
         try (ParallelContext context = new ParallelContext()) {
-            wrappers = context.runParallelWithConsumer(
+            return context.runParallelWithConsumer(
                     values,
                     ParallelUtils::defaultListImplementation,
                     (x, accumulator) -> accumulator.add(processor.apply(x)),
                     ParallelUtils::combineLists);
         }
-        return clusterer.buildClusters(wrappers)
-                .map(Wrapper::getMeta);
     }
 }
@@ -0,0 +1,70 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.Clusterer;
+import org.ml_methods_group.common.Clusters;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Values with equal keys are clustered as one representative, and then the group is put back into
+ * the cluster of its representative. Values with equal keys should be at zero distance from each other
+ * and have the same distances to other values, then linkage of a group is the linkage of its representative,
+ * and clusters are the same as without deduplication.
+ */
+public class DeduplicatingClusterer<V, K> implements Clusterer<V> {
+
+    private final Function<V, K> keyExtractor;
+    private final Clusterer<V> clusterer;
+    private int valuesCount;
+    private int groupsCount;
+
+    public DeduplicatingClusterer(Function<V, K> keyExtractor, Clusterer<V> clusterer) {
+        this.keyExtractor = keyExtractor;
+        this.clusterer = clusterer;
+    }
+
+    @Override
+    public Clusters<V> buildClusters(List<V> values) {
+        final List<K> keys = values.parallelStream()
+                .map(keyExtractor)
+                .collect(Collectors.toList());
+        final Map<K, List<V>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            groups.computeIfAbsent(keys.get(i), x -> new ArrayList<>()).add(values.get(i));
+        }
+        final Map<V, List<V>> byRepresenter = new IdentityHashMap<>();
+        groups.values().forEach(group -> byRepresenter.put(group.get(0), group));
+        valuesCount = values.size();
+        groupsCount = groups.size();
+        final List<V> representers = groups.values().stream()
+                .map(group -> group.get(0))
+                .collect(Collectors.toList());
+        final List<Cluster<V>> clusters = clusterer.buildClusters(representers).getClusters().stream()
+                .map(cluster -> new Cluster<>(cluster.stream()
+                        .flatMap(representer -> byRepresenter.get(representer).stream())
+                        .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+        return new Clusters<>(clusters);
+    }
+
+    /**
+     * @return number of values in the last call of buildClusters
+     */
+    public int getValuesCount() {
+        return valuesCount;
+    }
+
+    /**
+     * @return number of groups of equal values in the last call of buildClusters
+     */
+    public int getGroupsCount() {
+        return groupsCount;
+    }
+}
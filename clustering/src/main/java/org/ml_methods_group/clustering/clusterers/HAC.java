@@ -1,59 +1,86 @@
 package org.ml_methods_group.clustering.clusterers;
 
-import org.ml_methods_group.common.Clusterer;
 import org.ml_methods_group.common.Clusters;
 import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.Dendrogram;
 import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.HierarchicalClusterer;
+import org.ml_methods_group.common.metrics.algorithms.PairwiseDistances;
+import org.ml_methods_group.common.metrics.index.CandidatesIndex;
 import org.ml_methods_group.common.parallel.ParallelContext;
 import org.ml_methods_group.common.parallel.ParallelUtils;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-public class HAC<T> implements Clusterer<T> {
+public class HAC<T> implements HierarchicalClusterer<T> {
+
+    private static final int PAIRS_BLOCK_SIZE = 4096;
+    private static final int PARALLEL_MERGE_THRESHOLD = 8192;
 
     private final SortedSet<Triple> heap = new TreeSet<>();
     private final Map<Long, Triple> triples = new HashMap<>();
-    private final Set<Community> communities = new HashSet<>();
+    private final List<Community> communities = new ArrayList<>();
     private final double distanceLimit;
     private final int minClustersCount;
     private final DistanceFunction<T> metric;
+    private final CandidatesIndex<T> index;
     private int idGenerator = 0;
 
     public HAC(double distanceLimit, int minClustersCount, DistanceFunction<T> metric) {
+        this(distanceLimit, minClustersCount, metric, null);
+    }
+
+    /**
+     * Distances are evaluated only for candidate pairs of the index, other pairs are never merged.
+     */
+    public HAC(double distanceLimit, int minClustersCount, DistanceFunction<T> metric, CandidatesIndex<T> index) {
         this.distanceLimit = distanceLimit;
         this.minClustersCount = minClustersCount;
         this.metric = metric;
+        this.index = index;
     }
 
-    private void init(List<T> values) {
+    private void init(List<T> values, ParallelContext context) {
         heap.clear();
         triples.clear();
         communities.clear();
         idGenerator = 0;
-        values.stream()
-                .map(this::singletonCommunity)
-                .forEach(communities::add);
-        final List<Community> communitiesAsList = new ArrayList<>(communities);
-        Collections.shuffle(communitiesAsList);
-        try (ParallelContext context = new ParallelContext()) {
-            final List<Triple> toInsert = context.runParallel(communitiesAsList,
-                    ArrayList::new,
-                    this::findTriples,
+        final List<Community> singletons = IntStream.range(0, values.size())
+                .mapToObj(i -> singletonCommunity(values.get(i), i))
+                .collect(Collectors.toList());
+        singletons.forEach(this::addCommunity);
+        if (index == null) {
+            final PairwiseDistances pairs = PairwiseDistances.closePairs(values, metric, distanceLimit, context);
+            for (int i = 0; i < pairs.size(); i++) {
+                insertTriple(new Triple(pairs.getDistance(i),
+                        singletons.get(pairs.getSecond(i)), singletons.get(pairs.getFirst(i))));
+            }
+        } else {
+            index.build(values);
+            final long[] pairs = index.getCandidatePairs();
+            final List<Integer> blocks = new ArrayList<>();
+            for (int start = 0; start < pairs.length; start += PAIRS_BLOCK_SIZE) {
+                blocks.add(start);
+            }
+            final List<Triple> toInsert = context.runParallel(blocks,
+                    ParallelUtils::defaultListImplementation,
+                    (start, accumulator) -> findCandidateTriples(singletons, pairs, start, accumulator),
                     ParallelUtils::combineLists);
             toInsert.forEach(this::insertTriple);
         }
     }
 
-    private List<Triple> findTriples(Community community, List<Triple> accumulator) {
-        final T representative = community.entities.get(0);
-        for (Community another : communities) {
-            if (another == community) {
-                break;
-            }
-            final double distance = metric.distance(representative, another.entities.get(0), distanceLimit);
+    private List<Triple> findCandidateTriples(List<Community> singletons, long[] pairs, int start,
+                                              List<Triple> accumulator) {
+        final int end = Math.min(pairs.length, start + PAIRS_BLOCK_SIZE);
+        for (int i = start; i < end; i++) {
+            final Community first = singletons.get(CandidatesIndex.getFirst(pairs[i]));
+            final Community second = singletons.get(CandidatesIndex.getSecond(pairs[i]));
+            final double distance = metric.distance(first.entities.get(0), second.entities.get(0), distanceLimit);
             if (distance < distanceLimit) {
-                accumulator.add(new Triple(distance, community, another));
+                accumulator.add(new Triple(distance, second, first));
             }
         }
         return accumulator;
@@ -61,14 +88,7 @@ public class HAC<T> implements Clusterer<T> {
 
     @Override
     public Clusters<T> buildClusters(List<T> values) {
-        init(values);
-        while (!heap.isEmpty() && communities.size() > minClustersCount) {
-            final Triple minTriple = heap.first();
-            invalidateTriple(minTriple);
-            final Community first = minTriple.first;
-            final Community second = minTriple.second;
-            mergeCommunities(first, second);
-        }
+        run(values, minClustersCount, null);
         final List<Cluster<T>> clusters = communities.stream()
                 .map(c -> c.entities)
                 .map(Cluster::new)
@@ -76,7 +96,34 @@ public class HAC<T> implements Clusterer<T> {
         return new Clusters<>(clusters);
     }
 
-    private void mergeCommunities(Community first, Community second) {
+    /**
+     * Merges communities until all distances reach the limit and records every merge,
+     * so clusters for any smaller limit can be found without new run.
+     */
+    @Override
+    public Dendrogram<T> buildDendrogram(List<T> values) {
+        final Dendrogram.Builder builder = new Dendrogram.Builder(values.size());
+        run(values, 1, builder);
+        return builder.build(values, distanceLimit, minClustersCount);
+    }
+
+    private void run(List<T> values, int clustersCount, Dendrogram.Builder builder) {
+        try (ParallelContext context = new ParallelContext()) {
+            init(values, context);
+            while (!heap.isEmpty() && communities.size() > clustersCount) {
+                final Triple minTriple = heap.first();
+                invalidateTriple(minTriple);
+                final Community first = minTriple.first;
+                final Community second = minTriple.second;
+                if (builder != null) {
+                    builder.add(first.member, second.member, minTriple.distance);
+                }
+                mergeCommunities(first, second, context);
+            }
+        }
+    }
+
+    private void mergeCommunities(Community first, Community second, ParallelContext context) {
         final List<T> merged;
         if (first.entities.size() < second.entities.size()) {
             merged = second.entities;
@@ -86,21 +133,50 @@ public class HAC<T> implements Clusterer<T> {
             merged.addAll(second.entities);
         }
 
-        final Community newCommunity = new Community(merged);
-        communities.remove(first);
-        communities.remove(second);
+        final Community newCommunity = new Community(merged, first.member);
+        removeCommunity(first);
+        removeCommunity(second);
+
+        // lookups are read-only, so they run in parallel; heap is changed by one thread afterwards.
+        // Order of updates doesn't matter: heap content depends only on the set of updates
+        final List<Update> updates;
+        if (communities.size() < PARALLEL_MERGE_THRESHOLD) {
+            updates = new ArrayList<>();
+            communities.forEach(community -> findUpdate(first, second, community, updates));
+        } else {
+            updates = context.runParallelWithConsumer(communities,
+                    ParallelUtils::defaultListImplementation,
+                    (community, accumulator) -> findUpdate(first, second, community, accumulator),
+                    ParallelUtils::combineLists);
+        }
+        for (Update update : updates) {
+            final double newDistance = Math.max(getDistance(update.fromFirst), getDistance(update.fromSecond));
+            invalidateTriple(update.fromFirst);
+            invalidateTriple(update.fromSecond);
+            insertTripleIfNecessary(newDistance, newCommunity, update.community);
+        }
+        addCommunity(newCommunity);
+    }
+
+    private void findUpdate(Community first, Community second, Community community, List<Update> accumulator) {
+        final Triple fromFirst = triples.get(getTripleID(first, community));
+        final Triple fromSecond = triples.get(getTripleID(second, community));
+        if (fromFirst != null || fromSecond != null) {
+            accumulator.add(new Update(community, fromFirst, fromSecond));
+        }
+    }
+
+    private void addCommunity(Community community) {
+        community.position = communities.size();
+        communities.add(community);
+    }
 
-        for (Community community : communities) {
-            final long fromFirstID = getTripleID(first, community);
-            final long fromSecondID = getTripleID(second, community);
-            final Triple fromFirst = triples.get(fromFirstID);
-            final Triple fromSecond = triples.get(fromSecondID);
-            final double newDistance = Math.max(getDistance(fromFirst), getDistance(fromSecond));
-            invalidateTriple(fromFirst);
-            invalidateTriple(fromSecond);
-            insertTripleIfNecessary(newDistance, newCommunity, community);
+    private void removeCommunity(Community community) {
+        final Community last = communities.remove(communities.size() - 1);
+        if (last != community) {
+            communities.set(community.position, last);
+            last.position = community.position;
         }
-        communities.add(newCommunity);
     }
 
     private double getDistance(Triple triple) {
@@ -137,19 +213,22 @@ public class HAC<T> implements Clusterer<T> {
         triple.release();
     }
 
-    private Community singletonCommunity(T entity) {
+    private Community singletonCommunity(T entity, int index) {
         final List<T> singletonList = new ArrayList<>(1);
         singletonList.add(entity);
-        return new Community(singletonList);
+        return new Community(singletonList, index);
     }
 
     private class Community implements Comparable<Community> {
 
         private final List<T> entities;
         private final int id;
+        private final int member;
+        private int position;
 
-        Community(List<T> entities) {
+        Community(List<T> entities, int member) {
             this.entities = entities;
+            this.member = member;
             id = idGenerator++;
         }
 
@@ -200,6 +279,18 @@ public class HAC<T> implements Clusterer<T> {
         }
     }
 
+    private class Update {
+        private final Community community;
+        private final Triple fromFirst;
+        private final Triple fromSecond;
+
+        Update(Community community, Triple fromFirst, Triple fromSecond) {
+            this.community = community;
+            this.fromFirst = fromFirst;
+            this.fromSecond = fromSecond;
+        }
+    }
+
     private final Queue<Triple> triplesPoll = new ArrayDeque<>();
 
     private Triple createTriple(double distance, Community first, Community second) {
@@ -0,0 +1,280 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.Clusterer;
+import org.ml_methods_group.common.Clusters;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.metrics.algorithms.LongHeap;
+import org.ml_methods_group.common.metrics.index.NearestNeighboursGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Density-based clustering in the style of HDBSCAN (Campello, Moulavi, Sander 2013) on approximate
+ * k-nearest-neighbours graph, so only O(n * k) distances are evaluated. Edges are weighted by mutual
+ * reachability distance max(d(a, b), core(a), core(b)), where core distance is distance to k-th neighbour.
+ * Minimum spanning forest of the graph is condensed with minClusterSize and the most stable clusters are chosen.
+ * Values, which don't belong to any chosen cluster, are returned as singleton clusters.
+ */
+public class HDBSCAN<T> implements Clusterer<T> {
+
+    private static final long SEED = 239;
+    private static final double MIN_DISTANCE = 1e-9;
+
+    private final double distanceLimit;
+    private final int neighboursCount;
+    private final int minClusterSize;
+    private final DistanceFunction<T> metric;
+
+    /**
+     * @param distanceLimit edges with mutual reachability distance not less than limit are ignored
+     */
+    public HDBSCAN(double distanceLimit, int neighboursCount, int minClusterSize, DistanceFunction<T> metric) {
+        if (neighboursCount < 1 || minClusterSize < 2) {
+            throw new IllegalArgumentException("Expected at least one neighbour and clusters of two values, but got "
+                    + neighboursCount + " and " + minClusterSize);
+        }
+        this.distanceLimit = distanceLimit;
+        this.neighboursCount = neighboursCount;
+        this.minClusterSize = minClusterSize;
+        this.metric = metric;
+    }
+
+    @Override
+    public Clusters<T> buildClusters(List<T> values) {
+        final NearestNeighboursGraph graph = NearestNeighboursGraph.build(values, metric, neighboursCount, SEED);
+        final Hierarchy hierarchy = buildHierarchy(graph);
+        final Condensed condensed = condense(hierarchy);
+        final boolean[] selected = selectClusters(condensed);
+        final boolean[] clustered = new boolean[values.size()];
+        final List<Cluster<T>> clusters = new ArrayList<>();
+        for (int cluster = 0; cluster < condensed.size; cluster++) {
+            if (!selected[cluster]) {
+                continue;
+            }
+            final List<T> elements = new ArrayList<>();
+            for (int value : hierarchy.leaves(condensed.nodes[cluster])) {
+                elements.add(values.get(value));
+                clustered[value] = true;
+            }
+            clusters.add(new Cluster<>(elements));
+        }
+        for (int i = 0; i < values.size(); i++) {
+            if (!clustered[i]) {
+                clusters.add(new Cluster<>(new ArrayList<>(Collections.singletonList(values.get(i)))));
+            }
+        }
+        return new Clusters<>(clusters);
+    }
+
+    // single linkage over mutual reachability distances: Kruskal's algorithm on graph edges
+    private Hierarchy buildHierarchy(NearestNeighboursGraph graph) {
+        final int size = graph.size();
+        final int k = graph.getNeighboursCount();
+        final double[] core = new double[size];
+        for (int i = 0; i < size && k > 0; i++) {
+            core[i] = graph.getDistance(i, k - 1);
+        }
+        final long[] edges = new long[size * k];
+        int edgesCount = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < k; j++) {
+                final int neighbour = graph.getNeighbour(i, j);
+                final double distance = Math.max(graph.getDistance(i, j), Math.max(core[i], core[neighbour]));
+                if (distance < distanceLimit) {
+                    edges[edgesCount++] = LongHeap.pack((float) distance, i * k + j);
+                }
+            }
+        }
+        Arrays.sort(edges, 0, edgesCount);
+        final Hierarchy hierarchy = new Hierarchy(size);
+        final int[] parents = new int[size];
+        final int[] nodes = new int[size];
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+            nodes[i] = i;
+        }
+        for (int e = 0; e < edgesCount && hierarchy.count < 2 * size - 1; e++) {
+            final int edge = LongHeap.getPayload(edges[e]);
+            final int first = find(parents, edge / k);
+            final int second = find(parents, graph.getNeighbour(edge / k, edge % k));
+            if (first != second) {
+                parents[second] = first;
+                nodes[first] = hierarchy.merge(nodes[first], nodes[second], LongHeap.getPriority(edges[e]));
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (find(parents, i) == i) {
+                hierarchy.roots.add(nodes[i]);
+            }
+        }
+        return hierarchy;
+    }
+
+    private static int find(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    // top-down walk: cluster survives while one of parts is big enough, splits if both are big enough
+    private Condensed condense(Hierarchy hierarchy) {
+        final Condensed condensed = new Condensed(hierarchy.count);
+        final int[] stackNodes = new int[hierarchy.count];
+        final int[] stackClusters = new int[hierarchy.count];
+        int stackSize = 0;
+        for (int root : hierarchy.roots) {
+            if (hierarchy.sizes[root] >= minClusterSize) {
+                stackNodes[stackSize] = root;
+                stackClusters[stackSize++] = condensed.add(root, -1, 0);
+            }
+        }
+        final boolean singleRoot = stackSize == 1;
+        while (stackSize != 0) {
+            final int node = stackNodes[--stackSize];
+            final int cluster = stackClusters[stackSize];
+            if (hierarchy.isLeaf(node)) {
+                continue;
+            }
+            final double lambda = 1 / Math.max(hierarchy.heights[node], MIN_DISTANCE);
+            final double fromBirth = lambda - condensed.births[cluster];
+            final int left = hierarchy.left[node];
+            final int right = hierarchy.right[node];
+            final boolean isLeftBig = hierarchy.sizes[left] >= minClusterSize;
+            final boolean isRightBig = hierarchy.sizes[right] >= minClusterSize;
+            if (isLeftBig && isRightBig) {
+                condensed.stabilities[cluster] += fromBirth * hierarchy.sizes[node];
+                condensed.hasChildren[cluster] = true;
+                stackNodes[stackSize] = left;
+                stackClusters[stackSize++] = condensed.add(left, cluster, lambda);
+                stackNodes[stackSize] = right;
+                stackClusters[stackSize++] = condensed.add(right, cluster, lambda);
+            } else if (isLeftBig || isRightBig) {
+                condensed.stabilities[cluster] += fromBirth * hierarchy.sizes[isLeftBig ? right : left];
+                stackNodes[stackSize] = isLeftBig ? left : right;
+                stackClusters[stackSize++] = cluster;
+            } else {
+                condensed.stabilities[cluster] += fromBirth * hierarchy.sizes[node];
+            }
+        }
+        // as in HDBSCAN, the whole dataset isn't a cluster, unless nothing else is found
+        if (singleRoot) {
+            condensed.selectable[0] = !condensed.hasChildren[0];
+        }
+        return condensed;
+    }
+
+    // excess of mass: cluster is chosen, if it is more stable than chosen clusters inside it
+    private static boolean[] selectClusters(Condensed condensed) {
+        final boolean[] selected = new boolean[condensed.size];
+        final double[] values = new double[condensed.size];
+        final double[] childrenValues = new double[condensed.size];
+        // children are always created after their parents
+        for (int cluster = condensed.size - 1; cluster >= 0; cluster--) {
+            final double stability = condensed.stabilities[cluster];
+            if (condensed.selectable[cluster]
+                    && (!condensed.hasChildren[cluster] || stability >= childrenValues[cluster])) {
+                selected[cluster] = true;
+                values[cluster] = stability;
+            } else {
+                values[cluster] = childrenValues[cluster];
+            }
+            if (condensed.parents[cluster] != -1) {
+                childrenValues[condensed.parents[cluster]] += values[cluster];
+            }
+        }
+        final boolean[] covered = new boolean[condensed.size];
+        for (int cluster = 0; cluster < condensed.size; cluster++) {
+            final int parent = condensed.parents[cluster];
+            covered[cluster] = parent != -1 && (covered[parent] || selected[parent]);
+            selected[cluster] &= !covered[cluster];
+        }
+        return selected;
+    }
+
+    // leaves are values, internal nodes are merges
+    private static class Hierarchy {
+        private final int valuesCount;
+        private final int[] left;
+        private final int[] right;
+        private final double[] heights;
+        private final int[] sizes;
+        private final List<Integer> roots = new ArrayList<>();
+        private int count;
+
+        private Hierarchy(int valuesCount) {
+            final int capacity = Math.max(0, 2 * valuesCount - 1);
+            this.valuesCount = valuesCount;
+            this.left = new int[capacity];
+            this.right = new int[capacity];
+            this.heights = new double[capacity];
+            this.sizes = new int[capacity];
+            Arrays.fill(sizes, 0, valuesCount, 1);
+            this.count = valuesCount;
+        }
+
+        private int merge(int first, int second, double height) {
+            left[count] = first;
+            right[count] = second;
+            heights[count] = height;
+            sizes[count] = sizes[first] + sizes[second];
+            return count++;
+        }
+
+        private boolean isLeaf(int node) {
+            return node < valuesCount;
+        }
+
+        private int[] leaves(int node) {
+            final int[] result = new int[sizes[node]];
+            final int[] stack = new int[sizes[node]];
+            int stackSize = 0;
+            int resultSize = 0;
+            stack[stackSize++] = node;
+            while (stackSize != 0) {
+                final int current = stack[--stackSize];
+                if (isLeaf(current)) {
+                    result[resultSize++] = current;
+                } else {
+                    stack[stackSize++] = right[current];
+                    stack[stackSize++] = left[current];
+                }
+            }
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    // clusters of condensed tree
+    private static class Condensed {
+        private final int[] nodes;
+        private final int[] parents;
+        private final double[] births;
+        private final double[] stabilities;
+        private final boolean[] hasChildren;
+        private final boolean[] selectable;
+        private int size;
+
+        private Condensed(int capacity) {
+            this.nodes = new int[capacity];
+            this.parents = new int[capacity];
+            this.births = new double[capacity];
+            this.stabilities = new double[capacity];
+            this.hasChildren = new boolean[capacity];
+            this.selectable = new boolean[capacity];
+        }
+
+        private int add(int node, int parent, double birth) {
+            nodes[size] = node;
+            parents[size] = parent;
+            births[size] = birth;
+            selectable[size] = true;
+            return size++;
+        }
+    }
+}
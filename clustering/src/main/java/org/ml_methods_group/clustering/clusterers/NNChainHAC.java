@@ -0,0 +1,160 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.Clusterer;
+import org.ml_methods_group.common.Clusters;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.parallel.ParallelContext;
+import org.ml_methods_group.common.parallel.ParallelUtils;
+
+import java.util.*;
+
+/**
+ * Complete-linkage clustering with the same result as {@link HAC}, built by nearest-neighbor-chain algorithm
+ * over condensed float distance matrix. It takes O(n^2) time and 4 * n * (n - 1) / 2 bytes of memory.
+ * Distances, which are not less than distance limit, are stored as infinity, so such clusters are never merged.
+ */
+public class NNChainHAC<T> implements Clusterer<T> {
+
+    private final double distanceLimit;
+    private final int minClustersCount;
+    private final DistanceFunction<T> metric;
+
+    public NNChainHAC(double distanceLimit, int minClustersCount, DistanceFunction<T> metric) {
+        this.distanceLimit = distanceLimit;
+        this.minClustersCount = minClustersCount;
+        this.metric = metric;
+    }
+
+    @Override
+    public Clusters<T> buildClusters(List<T> values) {
+        final int n = values.size();
+        final float[] distances = computeDistances(values);
+        final boolean[] active = new boolean[n];
+        Arrays.fill(active, true);
+        final int[] chain = new int[n];
+        final int[] mergedFirst = new int[Math.max(0, n - 1)];
+        final int[] mergedSecond = new int[Math.max(0, n - 1)];
+        final float[] heights = new float[Math.max(0, n - 1)];
+        int mergesCount = 0;
+        int chainSize = 0;
+        int activeCount = n;
+        int start = 0;
+        while (activeCount > 1) {
+            if (chainSize == 0) {
+                while (!active[start]) {
+                    start++;
+                }
+                chain[chainSize++] = start;
+            }
+            final int top = chain[chainSize - 1];
+            final int previous = chainSize > 1 ? chain[chainSize - 2] : -1;
+            // previous element wins ties, otherwise chain can loop
+            int nearest = previous;
+            float nearestDistance = previous == -1 ? Float.POSITIVE_INFINITY : distances[position(top, previous)];
+            for (int i = 0; i < n; i++) {
+                if (i != top && active[i]) {
+                    final float distance = distances[position(top, i)];
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = i;
+                    }
+                }
+            }
+            if (nearestDistance == Float.POSITIVE_INFINITY) {
+                // all distances to this cluster stay infinite after any merges
+                active[top] = false;
+                activeCount--;
+                chainSize--;
+            } else if (nearest == previous) {
+                mergedFirst[mergesCount] = previous;
+                mergedSecond[mergesCount] = top;
+                heights[mergesCount++] = nearestDistance;
+                for (int i = 0; i < n; i++) {
+                    if (active[i] && i != top && i != previous) {
+                        final int toPrevious = position(previous, i);
+                        distances[toPrevious] = Math.max(distances[toPrevious], distances[position(top, i)]);
+                    }
+                }
+                active[top] = false;
+                activeCount--;
+                chainSize -= 2;
+            } else {
+                chain[chainSize++] = nearest;
+            }
+        }
+        return collectClusters(values, mergedFirst, mergedSecond, heights, mergesCount);
+    }
+
+    private float[] computeDistances(List<T> values) {
+        final long size = (long) values.size() * (values.size() - 1) / 2;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many values for condensed distance matrix: " + values.size());
+        }
+        final float[] distances = new float[(int) size];
+        final List<Integer> rows = new ArrayList<>();
+        for (int i = 1; i < values.size(); i++) {
+            rows.add(i);
+        }
+        Collections.shuffle(rows);
+        try (ParallelContext context = new ParallelContext()) {
+            context.runParallelWithConsumer(rows,
+                    ParallelUtils::defaultListImplementation,
+                    (row, accumulator) -> computeRow(values, row, distances),
+                    ParallelUtils::combineLists);
+        }
+        return distances;
+    }
+
+    private void computeRow(List<T> values, int row, float[] distances) {
+        final T value = values.get(row);
+        final int offset = position(row, 0);
+        for (int i = 0; i < row; i++) {
+            final double distance = metric.distance(value, values.get(i), distanceLimit);
+            distances[offset + i] = distance < distanceLimit ? (float) distance : Float.POSITIVE_INFINITY;
+        }
+    }
+
+    // merges are applied in order of height, which is monotone for complete linkage
+    private Clusters<T> collectClusters(List<T> values, int[] mergedFirst, int[] mergedSecond, float[] heights,
+                                        int mergesCount) {
+        final Integer[] order = new Integer[mergesCount];
+        for (int i = 0; i < mergesCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> heights[i]));
+        final int[] parents = new int[values.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+        int clustersCount = values.size();
+        for (int i = 0; i < mergesCount && clustersCount > minClustersCount; i++) {
+            final int first = find(parents, mergedFirst[order[i]]);
+            final int second = find(parents, mergedSecond[order[i]]);
+            parents[second] = first;
+            clustersCount--;
+        }
+        final Map<Integer, List<T>> clusters = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            clusters.computeIfAbsent(find(parents, i), x -> new ArrayList<>()).add(values.get(i));
+        }
+        final List<Cluster<T>> result = new ArrayList<>(clusters.size());
+        clusters.values().forEach(entities -> result.add(new Cluster<>(entities)));
+        return new Clusters<>(result);
+    }
+
+    private static int find(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    private static int position(int first, int second) {
+        if (first < second) {
+            return position(second, first);
+        }
+        return (int) ((long) first * (first - 1) / 2) + second;
+    }
+}
@@ -0,0 +1,111 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.Clusters;
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps clusters up to date without reclustering from scratch. New value joins the cluster with the smallest
+ * complete-linkage distance, if it is less than limit, otherwise new cluster is opened. Because values are
+ * assigned greedily, some clusters may become close enough to be merged, that is done by compaction.
+ * Indexes of clusters don't change between compactions.
+ */
+public class OnlineClusterer<T> {
+
+    private final double distanceLimit;
+    private final DistanceFunction<T> metric;
+    private final List<List<T>> clusters = new ArrayList<>();
+
+    public OnlineClusterer(double distanceLimit, DistanceFunction<T> metric, Clusters<T> initial) {
+        this.distanceLimit = distanceLimit;
+        this.metric = metric;
+        initial.getClusters().forEach(cluster -> clusters.add(cluster.elementsCopy()));
+    }
+
+    /**
+     * @return index of the cluster, which value was assigned to
+     */
+    public int add(T value) {
+        final double[] linkages = IntStream.range(0, clusters.size())
+                .parallel()
+                .mapToDouble(i -> linkage(value, clusters.get(i)))
+                .toArray();
+        int best = -1;
+        for (int i = 0; i < linkages.length; i++) {
+            if (linkages[i] < distanceLimit && (best == -1 || linkages[i] < linkages[best])) {
+                best = i;
+            }
+        }
+        if (best == -1) {
+            best = clusters.size();
+            clusters.add(new ArrayList<>());
+        }
+        clusters.get(best).add(value);
+        return best;
+    }
+
+    // maximal distance to elements of cluster, evaluation stops as soon as limit is reached
+    private double linkage(T value, List<T> cluster) {
+        double result = 0;
+        for (T element : cluster) {
+            result = Math.max(result, metric.distance(value, element, distanceLimit));
+            if (result >= distanceLimit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merges clusters by complete-linkage HAC, where clusters are treated as single values.
+     * Indexes of clusters are changed.
+     */
+    public void compact() {
+        final List<Cluster<T>> current = clusters.stream()
+                .map(Cluster::new)
+                .collect(Collectors.toList());
+        final List<Cluster<Cluster<T>>> merged = new HAC<>(distanceLimit, 1, new ClustersLinkage())
+                .buildClusters(current)
+                .getClusters();
+        clusters.clear();
+        for (Cluster<Cluster<T>> cluster : merged) {
+            final List<T> elements = new ArrayList<>();
+            cluster.forEach(part -> elements.addAll(part.getElements()));
+            clusters.add(elements);
+        }
+    }
+
+    public Clusters<T> getClusters() {
+        return new Clusters<>(clusters.stream()
+                .map(ArrayList::new)
+                .map(Cluster::new)
+                .collect(Collectors.toList()));
+    }
+
+    private class ClustersLinkage implements DistanceFunction<Cluster<T>> {
+
+        @Override
+        public double distance(Cluster<T> first, Cluster<T> second) {
+            return distance(first, second, Double.POSITIVE_INFINITY);
+        }
+
+        @Override
+        public double distance(Cluster<T> first, Cluster<T> second, double upperBound) {
+            double result = 0;
+            for (T value : first) {
+                for (T element : second) {
+                    result = Math.max(result, metric.distance(value, element, upperBound));
+                    if (result >= upperBound) {
+                        return upperBound;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
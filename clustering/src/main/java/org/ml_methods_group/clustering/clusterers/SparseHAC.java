@@ -0,0 +1,284 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.Clusterer;
+import org.ml_methods_group.common.Clusters;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.metrics.algorithms.LongHeap;
+import org.ml_methods_group.common.metrics.index.CandidatesIndex;
+import org.ml_methods_group.common.parallel.ParallelContext;
+
+import java.util.*;
+
+/**
+ * Complete-linkage clustering like {@link HAC}, which keeps only pairs closer than distance limit.
+ * Every community has sorted adjacency array of packed (neighbour id, float distance) pairs,
+ * and queue is a {@link LongHeap} of packed (distance, edge id) pairs with lazy removal of outdated edges.
+ * Merged community keeps id of one of its parts, so no objects are created per pair or per merge.
+ */
+public class SparseHAC<T> implements Clusterer<T> {
+
+    private static final long[] EMPTY = new long[0];
+    private static final int PAIRS_BLOCK_SIZE = 4096;
+
+    private final double distanceLimit;
+    private final int minClustersCount;
+    private final DistanceFunction<T> metric;
+    private final CandidatesIndex<T> index;
+
+    public SparseHAC(double distanceLimit, int minClustersCount, DistanceFunction<T> metric) {
+        this(distanceLimit, minClustersCount, metric, null);
+    }
+
+    /**
+     * Distances are evaluated only for candidate pairs of the index, other pairs are never merged.
+     */
+    public SparseHAC(double distanceLimit, int minClustersCount, DistanceFunction<T> metric,
+                     CandidatesIndex<T> index) {
+        this.distanceLimit = distanceLimit;
+        this.minClustersCount = minClustersCount;
+        this.metric = metric;
+        this.index = index;
+    }
+
+    @Override
+    public Clusters<T> buildClusters(List<T> values) {
+        return new Run(values).run();
+    }
+
+    private Edges findEdges(List<T> values) {
+        // edge ids break ties between equal distances, so blocks are concatenated in the fixed order
+        final List<Integer> blocks = new ArrayList<>();
+        final List<Edges> found;
+        try (ParallelContext context = new ParallelContext()) {
+            if (index == null) {
+                for (int i = 1; i < values.size(); i++) {
+                    blocks.add(i);
+                }
+                found = context.runEach(blocks, row -> findRowEdges(values, row, new Edges()));
+            } else {
+                index.build(values);
+                final long[] pairs = index.getCandidatePairs();
+                for (int start = 0; start < pairs.length; start += PAIRS_BLOCK_SIZE) {
+                    blocks.add(start);
+                }
+                found = context.runEach(blocks, start -> findCandidateEdges(values, pairs, start, new Edges()));
+            }
+        }
+        final Edges edges = new Edges();
+        found.forEach(edges::append);
+        return edges;
+    }
+
+    private Edges findRowEdges(List<T> values, int row, Edges edges) {
+        final T value = values.get(row);
+        for (int i = 0; i < row; i++) {
+            edges.addIfClose(i, row, metric.distance(value, values.get(i), distanceLimit), distanceLimit);
+        }
+        return edges;
+    }
+
+    private Edges findCandidateEdges(List<T> values, long[] pairs, int start, Edges edges) {
+        final int end = Math.min(pairs.length, start + PAIRS_BLOCK_SIZE);
+        for (int i = start; i < end; i++) {
+            final int first = CandidatesIndex.getFirst(pairs[i]);
+            final int second = CandidatesIndex.getSecond(pairs[i]);
+            edges.addIfClose(first, second,
+                    metric.distance(values.get(first), values.get(second), distanceLimit), distanceLimit);
+        }
+        return edges;
+    }
+
+    private class Run {
+        private final List<T> values;
+        private final long[][] adjacency;
+        private final boolean[] active;
+        private final int[] next;
+        private final int[] last;
+        private final LongHeap heap = new LongHeap();
+        private int[] edgeFirst = new int[16];
+        private int[] edgeSecond = new int[16];
+        private int edgesCount = 0;
+        private int communitiesCount;
+
+        private Run(List<T> values) {
+            final int n = values.size();
+            this.values = values;
+            this.adjacency = new long[n][];
+            this.active = new boolean[n];
+            this.next = new int[n];
+            this.last = new int[n];
+            this.communitiesCount = n;
+            Arrays.fill(active, true);
+            Arrays.fill(next, -1);
+            for (int i = 0; i < n; i++) {
+                last[i] = i;
+            }
+            final Edges edges = findEdges(values);
+            final int[] degrees = new int[n];
+            for (int i = 0; i < edges.size; i++) {
+                degrees[edges.first[i]]++;
+                degrees[edges.second[i]]++;
+            }
+            for (int i = 0; i < n; i++) {
+                adjacency[i] = degrees[i] == 0 ? EMPTY : new long[degrees[i]];
+                degrees[i] = 0;
+            }
+            for (int i = 0; i < edges.size; i++) {
+                final int first = edges.first[i];
+                final int second = edges.second[i];
+                final float distance = edges.distances[i];
+                adjacency[first][degrees[first]++] = packNeighbour(second, distance);
+                adjacency[second][degrees[second]++] = packNeighbour(first, distance);
+                push(first, second, distance);
+            }
+            for (long[] neighbours : adjacency) {
+                Arrays.sort(neighbours);
+            }
+        }
+
+        private Clusters<T> run() {
+            while (!heap.isEmpty() && communitiesCount > minClustersCount) {
+                final long key = heap.poll();
+                final int edge = LongHeap.getPayload(key);
+                final int first = edgeFirst[edge];
+                final int second = edgeSecond[edge];
+                if (active[first] && active[second]
+                        && getDistance(adjacency[first], second) == LongHeap.getPriority(key)) {
+                    merge(first, second);
+                }
+            }
+            final List<Cluster<T>> clusters = new ArrayList<>(communitiesCount);
+            for (int i = 0; i < active.length; i++) {
+                if (active[i]) {
+                    final List<T> entities = new ArrayList<>();
+                    for (int j = i; j != -1; j = next[j]) {
+                        entities.add(values.get(j));
+                    }
+                    clusters.add(new Cluster<>(entities));
+                }
+            }
+            return new Clusters<>(clusters);
+        }
+
+        // second is merged into first, distances to neighbours of only one of them become infinite
+        private void merge(int first, int second) {
+            final long[] firstNeighbours = adjacency[first];
+            final long[] secondNeighbours = adjacency[second];
+            final long[] merged = new long[Math.min(firstNeighbours.length, secondNeighbours.length)];
+            int mergedSize = 0;
+            int i = 0;
+            int j = 0;
+            while (i < firstNeighbours.length || j < secondNeighbours.length) {
+                final int fromFirst = i < firstNeighbours.length ? getNeighbour(firstNeighbours[i]) : Integer.MAX_VALUE;
+                final int fromSecond = j < secondNeighbours.length ? getNeighbour(secondNeighbours[j]) : Integer.MAX_VALUE;
+                if (fromFirst == fromSecond) {
+                    final float distance = Math.max(getNeighbourDistance(firstNeighbours[i]),
+                            getNeighbourDistance(secondNeighbours[j]));
+                    merged[mergedSize++] = packNeighbour(fromFirst, distance);
+                    adjacency[fromFirst] = update(adjacency[fromFirst], first, second, distance);
+                    push(first, fromFirst, distance);
+                    i++;
+                    j++;
+                } else if (fromFirst < fromSecond) {
+                    if (fromFirst != second) {
+                        adjacency[fromFirst] = update(adjacency[fromFirst], first, second, Float.NaN);
+                    }
+                    i++;
+                } else {
+                    if (fromSecond != first) {
+                        adjacency[fromSecond] = update(adjacency[fromSecond], first, second, Float.NaN);
+                    }
+                    j++;
+                }
+            }
+            adjacency[first] = mergedSize == 0 ? EMPTY : Arrays.copyOf(merged, mergedSize);
+            adjacency[second] = EMPTY;
+            active[second] = false;
+            next[last[first]] = second;
+            last[first] = last[second];
+            communitiesCount--;
+        }
+
+        // removes second from neighbours, first is updated with the distance or removed if it's NaN
+        private long[] update(long[] neighbours, int first, int second, float distance) {
+            final boolean keepFirst = !Float.isNaN(distance);
+            int size = 0;
+            for (long neighbour : neighbours) {
+                final int id = getNeighbour(neighbour);
+                if (id == first && keepFirst) {
+                    neighbours[size++] = packNeighbour(first, distance);
+                } else if (id != first && id != second) {
+                    neighbours[size++] = neighbour;
+                }
+            }
+            return size == neighbours.length ? neighbours : Arrays.copyOf(neighbours, size);
+        }
+
+        private void push(int first, int second, float distance) {
+            if (edgesCount == edgeFirst.length) {
+                edgeFirst = Arrays.copyOf(edgeFirst, 2 * edgesCount);
+                edgeSecond = Arrays.copyOf(edgeSecond, 2 * edgesCount);
+            }
+            edgeFirst[edgesCount] = first;
+            edgeSecond[edgesCount] = second;
+            heap.add(LongHeap.pack(distance, edgesCount++));
+        }
+    }
+
+    private static float getDistance(long[] neighbours, int neighbour) {
+        int left = 0;
+        int right = neighbours.length - 1;
+        while (left <= right) {
+            final int middle = (left + right) >>> 1;
+            final int current = getNeighbour(neighbours[middle]);
+            if (current == neighbour) {
+                return getNeighbourDistance(neighbours[middle]);
+            } else if (current < neighbour) {
+                left = middle + 1;
+            } else {
+                right = middle - 1;
+            }
+        }
+        return Float.POSITIVE_INFINITY;
+    }
+
+    private static long packNeighbour(int neighbour, float distance) {
+        return ((long) neighbour << 32) | (Float.floatToIntBits(distance) & 0xffffffffL);
+    }
+
+    private static int getNeighbour(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static float getNeighbourDistance(long packed) {
+        return Float.intBitsToFloat((int) packed);
+    }
+
+    private static class Edges {
+        private int[] first = new int[16];
+        private int[] second = new int[16];
+        private float[] distances = new float[16];
+        private int size = 0;
+
+        private void addIfClose(int from, int to, double distance, double limit) {
+            if (distance >= limit) {
+                return;
+            }
+            if (size == first.length) {
+                first = Arrays.copyOf(first, 2 * size);
+                second = Arrays.copyOf(second, 2 * size);
+                distances = Arrays.copyOf(distances, 2 * size);
+            }
+            first[size] = from;
+            second[size] = to;
+            distances[size++] = (float) distance;
+        }
+
+        private void append(Edges other) {
+            for (int i = 0; i < other.size; i++) {
+                addIfClose(other.first[i], other.second[i], other.distances[i], Double.POSITIVE_INFINITY);
+            }
+        }
+    }
+}
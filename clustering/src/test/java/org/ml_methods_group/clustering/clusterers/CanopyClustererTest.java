@@ -0,0 +1,59 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.junit.Test;
+import org.ml_methods_group.common.Clusters;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.METRIC;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.partition;
+
+public class CanopyClustererTest {
+
+    @Test
+    public void testSeparatedBlobs() {
+        final Random random = new Random(239);
+        final List<double[]> values = IntStream.range(0, 400)
+                .mapToObj(i -> new double[]{(i % 4) * 20 + random.nextGaussian() * 0.3,
+                        random.nextGaussian() * 0.3})
+                .collect(Collectors.toList());
+        final Clusters<double[]> expected = new HAC<>(0.5, 1, METRIC).buildClusters(values);
+        final Clusters<double[]> clusters = new CanopyClusterer<>(METRIC, 5, 3,
+                () -> new HAC<>(0.5, 1, METRIC)).buildClusters(values);
+        assertEquals(partition(expected), partition(clusters));
+    }
+
+    @Test
+    public void testOverlappingCanopies() {
+        final Random random = new Random(239);
+        final List<double[]> values = IntStream.range(0, 500)
+                .mapToObj(i -> new double[]{random.nextDouble() * 10, random.nextDouble() * 10})
+                .collect(Collectors.toList());
+        final Clusters<double[]> clusters = new CanopyClusterer<>(METRIC, 3, 1.5,
+                () -> new HAC<>(1, 1, METRIC)).buildClusters(values);
+        final Set<Set<double[]>> partition = partition(clusters);
+        final Set<double[]> all = Collections.newSetFromMap(new IdentityHashMap<>());
+        partition.forEach(all::addAll);
+        assertEquals(values.size(), all.size());
+        assertEquals(values.size(), partition.stream().mapToInt(Set::size).sum());
+        final Set<Set<double[]>> expected = partition(new HAC<>(1, 1, METRIC).buildClusters(values));
+        for (Set<double[]> cluster : expected) {
+            assertTrue(partition.stream().anyMatch(merged -> merged.containsAll(cluster)));
+        }
+    }
+
+    @Test
+    public void testClusterAcrossCanopies() {
+        final List<double[]> values = IntStream.range(0, 10)
+                .mapToObj(i -> new double[]{i * 0.1, 0})
+                .collect(Collectors.toList());
+        final Clusters<double[]> clusters = new CanopyClusterer<>(METRIC, 0.6, 0.3,
+                () -> new HAC<>(1, 1, METRIC)).buildClusters(values);
+        assertEquals(1, clusters.getClusters().size());
+        assertEquals(values.size(), clusters.getClusters().get(0).size());
+    }
+}
@@ -0,0 +1,55 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.Clusters;
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class ClusteringTestUtils {
+
+    static final DistanceFunction<double[]> METRIC = (a, b) -> Math.hypot(a[0] - b[0], a[1] - b[1]);
+
+    /**
+     * Points uniformly distributed in 10x10 square
+     */
+    static List<double[]> randomPoints(int count, long seed) {
+        final Random random = new Random(seed);
+        return IntStream.range(0, count)
+                .mapToObj(i -> new double[]{random.nextDouble() * 10, random.nextDouble() * 10})
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 40 groups of 5 sorted sets, which differ from the base set of their group in one element
+     */
+    static List<long[]> similarSets() {
+        final Random random = new Random(239);
+        final List<long[]> values = new ArrayList<>();
+        for (int group = 0; group < 40; group++) {
+            final long[] base = random.longs(20, 0, 1000).toArray();
+            for (int i = 0; i < 5; i++) {
+                final long[] value = base.clone();
+                value[random.nextInt(value.length)] = random.nextInt(1000);
+                Arrays.sort(value);
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Clusters as sets of values compared by identity, so partitions can be compared regardless of order
+     */
+    static <T> Set<Set<T>> partition(Clusters<T> clusters) {
+        final Set<Set<T>> result = new HashSet<>();
+        for (Cluster<T> cluster : clusters.getClusters()) {
+            final Set<T> set = Collections.newSetFromMap(new IdentityHashMap<>());
+            set.addAll(cluster.getElements());
+            result.add(set);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,38 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.junit.Test;
+import org.ml_methods_group.common.Clusters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.METRIC;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.partition;
+
+public class DeduplicatingClustererTest {
+
+    @Test
+    public void testSameClustersAsHAC() {
+        final Random random = new Random(239);
+        final List<double[]> distinct = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            distinct.add(new double[]{random.nextInt(20), random.nextInt(20)});
+        }
+        final List<double[]> values = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            values.add(distinct.get(random.nextInt(distinct.size())).clone());
+        }
+        final DeduplicatingClusterer<double[], List<Double>> clusterer = new DeduplicatingClusterer<>(
+                x -> Arrays.asList(x[0], x[1]),
+                new HAC<>(3, 1, METRIC));
+        final Clusters<double[]> deduplicated = clusterer.buildClusters(values);
+        final Clusters<double[]> expected = new HAC<>(3, 1, METRIC).buildClusters(values);
+        assertEquals(values.size(), clusterer.getValuesCount());
+        assertEquals(values.stream().map(x -> Arrays.asList(x[0], x[1])).distinct().count(),
+                clusterer.getGroupsCount());
+        assertEquals(partition(expected), partition(deduplicated));
+    }
+}
@@ -0,0 +1,45 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.junit.Test;
+import org.ml_methods_group.common.Dendrogram;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.metrics.functions.SortedJaccardDistanceFunction;
+import org.ml_methods_group.common.metrics.index.CandidatesIndex;
+import org.ml_methods_group.common.metrics.index.MinHashIndex;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.METRIC;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.partition;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.randomPoints;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.similarSets;
+
+public class HACTest {
+
+    @Test
+    public void testDendrogramCuts() {
+        final List<double[]> values = randomPoints(300, 566);
+        for (int minClustersCount : new int[]{1, 40}) {
+            final Dendrogram<double[]> dendrogram = new HAC<>(2.5, minClustersCount, METRIC)
+                    .buildDendrogram(values);
+            for (double threshold : new double[]{0.1, 0.5, 1, 2, 2.5}) {
+                assertEquals(partition(new HAC<>(threshold, minClustersCount, METRIC).buildClusters(values)),
+                        partition(dendrogram.cut(threshold)));
+            }
+        }
+    }
+
+    @Test
+    public void testCandidatesIndex() {
+        final List<long[]> values = similarSets();
+        final DistanceFunction<long[]> metric = new SortedJaccardDistanceFunction();
+        final CandidatesIndex<long[]> index = new MinHashIndex<>(x -> x, 20, 3);
+        // all close pairs are proposed, so other pairs would never be merged anyway
+        assertEquals(1, CandidatesIndex.pairsRecall(index, values, metric, 0.3), 0);
+        assertEquals(partition(new HAC<>(0.3, 1, metric).buildClusters(values)),
+                partition(new HAC<>(0.3, 1, metric, index).buildClusters(values)));
+        assertEquals(partition(new HAC<>(0.3, 1, metric).buildDendrogram(values).cut(0.2)),
+                partition(new HAC<>(0.3, 1, metric, index).buildDendrogram(values).cut(0.2)));
+    }
+}
@@ -0,0 +1,61 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.junit.Test;
+import org.ml_methods_group.common.Clusters;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.METRIC;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.partition;
+
+public class HDBSCANTest {
+
+    @Test
+    public void testSeparatedBlobs() {
+        final Random random = new Random(239);
+        final List<List<double[]>> blobs = new ArrayList<>();
+        final List<double[]> values = new ArrayList<>();
+        for (double[] center : new double[][]{{0, 0}, {10, 0}, {0, 10}}) {
+            final List<double[]> blob = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                blob.add(new double[]{center[0] + random.nextGaussian() * 0.5,
+                        center[1] + random.nextGaussian() * 0.5});
+            }
+            blobs.add(blob);
+            values.addAll(blob);
+        }
+        Collections.shuffle(values, random);
+        final Clusters<double[]> clusters = new HDBSCAN<>(Double.POSITIVE_INFINITY, 10, 20, METRIC)
+                .buildClusters(values);
+        final Set<Set<double[]>> partition = partition(clusters);
+        assertEquals(values.size(), partition.stream().mapToInt(Set::size).sum());
+        final List<Set<double[]>> big = partition.stream()
+                .filter(cluster -> cluster.size() >= 20)
+                .collect(Collectors.toList());
+        assertEquals(3, big.size());
+        for (List<double[]> blob : blobs) {
+            final Set<double[]> cluster = big.stream()
+                    .filter(x -> x.contains(blob.get(0)))
+                    .findFirst()
+                    .orElseThrow();
+            assertTrue(cluster.size() >= 90);
+            assertTrue(blob.containsAll(cluster));
+        }
+    }
+
+    @Test
+    public void testDistanceLimit() {
+        final List<double[]> values = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            values.add(new double[]{i * 0.1, 0});
+            values.add(new double[]{100 + i * 0.1, 0});
+        }
+        final Clusters<double[]> clusters = new HDBSCAN<>(1, 5, 10, METRIC).buildClusters(values);
+        assertEquals(2, clusters.getClusters().size());
+        final Clusters<double[]> limited = new HDBSCAN<>(0.05, 5, 10, METRIC).buildClusters(values);
+        assertEquals(values.size(), limited.getClusters().size());
+    }
+}
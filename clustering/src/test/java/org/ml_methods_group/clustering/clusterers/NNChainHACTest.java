@@ -0,0 +1,28 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.junit.Test;
+import org.ml_methods_group.common.Clusters;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.METRIC;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.partition;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.randomPoints;
+
+public class NNChainHACTest {
+
+    @Test
+    public void testSameClustersAsHAC() {
+        final List<double[]> values = randomPoints(300, 239);
+        for (double threshold : new double[]{0.3, 1, 2.5, 100}) {
+            for (int minClustersCount : new int[]{1, 20, 150}) {
+                final Clusters<double[]> expected = new HAC<>(threshold, minClustersCount, METRIC)
+                        .buildClusters(values);
+                final Clusters<double[]> nnChain = new NNChainHAC<>(threshold, minClustersCount, METRIC)
+                        .buildClusters(values);
+                assertEquals(partition(expected), partition(nnChain));
+            }
+        }
+    }
+}
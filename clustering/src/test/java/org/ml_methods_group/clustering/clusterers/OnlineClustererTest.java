@@ -0,0 +1,55 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.junit.Test;
+import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.Clusters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.METRIC;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.partition;
+
+public class OnlineClustererTest {
+
+    private static Cluster<double[]> cluster(double[]... values) {
+        return new Cluster<>(new ArrayList<>(Arrays.asList(values)));
+    }
+
+    @Test
+    public void testAssignment() {
+        final Clusters<double[]> initial = new Clusters<>(List.of(
+                cluster(new double[]{0, 0}, new double[]{1, 0}),
+                cluster(new double[]{10, 0})));
+        final OnlineClusterer<double[]> clusterer = new OnlineClusterer<>(2, METRIC, initial);
+        assertEquals(0, clusterer.add(new double[]{0.5, 1}));
+        assertEquals(1, clusterer.add(new double[]{9, 0}));
+        // close to the second element of the first cluster, but too far from the first one
+        assertEquals(2, clusterer.add(new double[]{2.5, 0}));
+        assertEquals(2, clusterer.add(new double[]{4, 0}));
+        assertEquals(3, clusterer.getClusters().getClusters().size());
+    }
+
+    @Test
+    public void testCompaction() {
+        final Clusters<double[]> initial = new Clusters<>(List.of(
+                cluster(new double[]{0, 0}),
+                cluster(new double[]{0.5, 0}),
+                cluster(new double[]{10, 0})));
+        final OnlineClusterer<double[]> clusterer = new OnlineClusterer<>(2, METRIC, initial);
+        clusterer.add(new double[]{1, 0});
+        clusterer.compact();
+        final Clusters<double[]> expected = new HAC<>(2, 1, METRIC).buildClusters(Arrays.asList(
+                initial.getClusters().get(0).getElements().get(0),
+                initial.getClusters().get(1).getElements().get(0),
+                initial.getClusters().get(2).getElements().get(0),
+                clusterer.getClusters().getClusters().stream()
+                        .flatMap(Cluster::stream)
+                        .filter(x -> x[0] == 1)
+                        .findFirst()
+                        .orElseThrow()));
+        assertEquals(partition(expected), partition(clusterer.getClusters()));
+    }
+}
@@ -0,0 +1,59 @@
+package org.ml_methods_group.clustering.clusterers;
+
+import org.junit.Test;
+import org.ml_methods_group.common.Cluster;
+import org.ml_methods_group.common.Clusters;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.metrics.functions.SortedJaccardDistanceFunction;
+import org.ml_methods_group.common.metrics.index.MinHashIndex;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.METRIC;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.partition;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.randomPoints;
+import static org.ml_methods_group.clustering.clusterers.ClusteringTestUtils.similarSets;
+
+public class SparseHACTest {
+
+    @Test
+    public void testSameClustersAsHAC() {
+        final List<double[]> values = randomPoints(300, 239);
+        for (double threshold : new double[]{0.3, 1, 2.5, 100}) {
+            for (int minClustersCount : new int[]{1, 20, 150}) {
+                final Clusters<double[]> expected = new HAC<>(threshold, minClustersCount, METRIC)
+                        .buildClusters(values);
+                final Clusters<double[]> sparse = new SparseHAC<>(threshold, minClustersCount, METRIC)
+                        .buildClusters(values);
+                assertEquals(partition(expected), partition(sparse));
+            }
+        }
+    }
+
+    @Test
+    public void testTiesDontDependOnScheduling() {
+        // jaccard distances of similar sets have many ties, which are broken by edge ids
+        final List<long[]> values = similarSets();
+        final DistanceFunction<long[]> metric = new SortedJaccardDistanceFunction();
+        for (int minClustersCount : new int[]{1, 60}) {
+            final List<List<long[]>> expected = clusters(new SparseHAC<>(0.5, minClustersCount, metric)
+                    .buildClusters(values));
+            final List<List<long[]>> expectedIndexed = clusters(new SparseHAC<>(0.5, minClustersCount, metric,
+                    new MinHashIndex<>(x -> x, 20, 3)).buildClusters(values));
+            for (int attempt = 0; attempt < 5; attempt++) {
+                assertEquals(expected, clusters(new SparseHAC<>(0.5, minClustersCount, metric)
+                        .buildClusters(values)));
+                assertEquals(expectedIndexed, clusters(new SparseHAC<>(0.5, minClustersCount, metric,
+                        new MinHashIndex<>(x -> x, 20, 3)).buildClusters(values)));
+            }
+        }
+    }
+
+    private static List<List<long[]>> clusters(Clusters<long[]> clusters) {
+        return clusters.getClusters().stream()
+                .map(Cluster::getElements)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,93 @@
+package org.ml_methods_group.common.metrics.functions;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cosine distances from one query to all rows: plain loops, which were used before,
+ * against unrolled pairwise kernel and bulk scans of {@link DenseVectors}.
+ * Run by "gradle :common:jmh".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorKernelsBenchmark {
+
+    private static final int ROWS = 5000;
+    private static final int QUERIES = 64;
+
+    @Param({"64", "256"})
+    public int dimension;
+
+    private List<double[]> rows;
+    private DenseVectors doubles;
+    private DenseVectors floats;
+    private double[] result;
+    private int query;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(239);
+        rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(random.doubles(dimension).map(x -> x - 0.5).toArray());
+        }
+        doubles = DenseVectors.of(rows, false);
+        floats = DenseVectors.of(rows, true);
+        result = new double[ROWS];
+    }
+
+    private double[] nextQuery() {
+        query = (query + 1) % QUERIES;
+        return rows.get(query);
+    }
+
+    @Benchmark
+    public void plainLoops(Blackhole blackhole) {
+        final double[] value = nextQuery();
+        for (double[] row : rows) {
+            blackhole.consume(1 - plainCosineSimilarity(value, row));
+        }
+    }
+
+    @Benchmark
+    public void unrolledPairs(Blackhole blackhole) {
+        final double[] value = nextQuery();
+        for (double[] row : rows) {
+            blackhole.consume(FunctionsUtils.cosineDistance(value, row));
+        }
+    }
+
+    @Benchmark
+    public double[] bulkDoubles() {
+        doubles.cosineDistances(nextQuery(), result);
+        return result;
+    }
+
+    @Benchmark
+    public double[] bulkFloats() {
+        floats.cosineDistances(nextQuery(), result);
+        return result;
+    }
+
+    // cosine similarity as it was evaluated before kernels were unrolled
+    private static double plainCosineSimilarity(double[] a, double[] b) {
+        double sum = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return sum == 0 ? 0 : (1 + sum / Math.sqrt(normA * normB)) / 2;
+    }
+}
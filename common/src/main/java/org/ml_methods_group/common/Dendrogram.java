@@ -0,0 +1,101 @@
+package org.ml_methods_group.common;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sequence of merges with non-decreasing heights. Clusters for any threshold up to the limit, the dendrogram
+ * was built with, are found by applying merges lower than threshold, until minClustersCount clusters remain.
+ */
+public class Dendrogram<V> {
+    private final List<V> values;
+    private final int[] first;
+    private final int[] second;
+    private final double[] heights;
+    private final double limit;
+    private final int minClustersCount;
+
+    private Dendrogram(List<V> values, int[] first, int[] second, double[] heights,
+                       double limit, int minClustersCount) {
+        this.values = values;
+        this.first = first;
+        this.second = second;
+        this.heights = heights;
+        this.limit = limit;
+        this.minClustersCount = minClustersCount;
+    }
+
+    public Clusters<V> cut(double threshold) {
+        if (threshold > limit) {
+            throw new IllegalArgumentException("Dendrogram was built for thresholds up to " + limit
+                    + ", but " + threshold + " was requested");
+        }
+        final int[] parents = new int[values.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+        int clustersCount = values.size();
+        for (int i = 0; i < heights.length && heights[i] < threshold && clustersCount > minClustersCount; i++) {
+            parents[find(parents, second[i])] = find(parents, first[i]);
+            clustersCount--;
+        }
+        final Map<Integer, List<V>> clusters = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            clusters.computeIfAbsent(find(parents, i), x -> new ArrayList<>()).add(values.get(i));
+        }
+        return new Clusters<>(clusters.values().stream()
+                .map(Cluster::new)
+                .collect(Collectors.toList()));
+    }
+
+    public <T> Dendrogram<T> map(Function<V, T> mapping) {
+        final List<T> mapped = values.stream()
+                .map(mapping)
+                .collect(Collectors.toList());
+        return new Dendrogram<>(mapped, first, second, heights, limit, minClustersCount);
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    private static int find(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    /**
+     * Collects merges in order of heights. Merge is described by indexes of any values from merged clusters.
+     */
+    public static class Builder {
+        private final int[] first;
+        private final int[] second;
+        private final double[] heights;
+        private int size = 0;
+
+        public Builder(int valuesCount) {
+            final int capacity = Math.max(0, valuesCount - 1);
+            this.first = new int[capacity];
+            this.second = new int[capacity];
+            this.heights = new double[capacity];
+        }
+
+        public void add(int firstValue, int secondValue, double height) {
+            if (size != 0 && height < heights[size - 1]) {
+                throw new IllegalArgumentException("Merges should be added in order of heights");
+            }
+            first[size] = firstValue;
+            second[size] = secondValue;
+            heights[size++] = height;
+        }
+
+        public <V> Dendrogram<V> build(List<V> values, double limit, int minClustersCount) {
+            return new Dendrogram<>(new ArrayList<>(values), Arrays.copyOf(first, size),
+                    Arrays.copyOf(second, size), Arrays.copyOf(heights, size), limit, minClustersCount);
+        }
+    }
+}
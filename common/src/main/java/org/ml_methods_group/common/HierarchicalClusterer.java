@@ -0,0 +1,7 @@
+package org.ml_methods_group.common;
+
+import java.util.List;
+
+public interface HierarchicalClusterer<V> extends Clusterer<V> {
+    Dendrogram<V> buildDendrogram(List<V> values);
+}
@@ -0,0 +1,10 @@
+package org.ml_methods_group.common;
+
+import java.util.List;
+
+public interface MultipleOptionSelector<V, O> extends OptionSelector<V, O> {
+    /**
+     * @return at most k closest options, sorted from the closest one
+     */
+    List<O> selectOptions(V value, int k);
+}
@@ -5,4 +5,5 @@ import java.util.Optional;
 public interface Repository<K, V> extends AutoCloseable {
     Optional<V> loadValue(K key);
     void storeValue(K key, V value);
+    void removeValue(K key);
 }
@@ -7,6 +7,11 @@ import java.util.BitSet;
 import java.util.List;
 
 public class ASTUtils {
+    private static final long FIRST_SEED = 0x9e3779b97f4a7c15L;
+    private static final long SECOND_SEED = 0xc2b2ae3d27d4eb4fL;
+    private static final long FIRST_MULTIPLIER = 0x100000001b3L;
+    private static final long SECOND_MULTIPLIER = 0xff51afd7ed558ccdL;
+
     public static ITree getFirstChild(ITree parent, NodeType... types) {
         BitSet acceptable = new BitSet();
         Arrays.stream(types)
@@ -38,4 +43,45 @@ public class ASTUtils {
         }
         return true;
     }
+
+    /**
+     * 128-bit hash of type, label and children of every node. Unlike {@link ITree#getHash()},
+     * it's computed independently of cached values, and equal hashes make {@link #deepEquals} very likely.
+     */
+    public static long[] structuralHash(ITree tree) {
+        final long[] result = new long[2];
+        structuralHash(tree, result);
+        return result;
+    }
+
+    private static void structuralHash(ITree tree, long[] result) {
+        final String label = tree.getLabel();
+        final List<ITree> children = tree.getChildren();
+        long first = FIRST_SEED ^ tree.getType();
+        long second = SECOND_SEED ^ tree.getType();
+        first = first * FIRST_MULTIPLIER + label.length();
+        second = second * SECOND_MULTIPLIER + label.length();
+        for (int i = 0; i < label.length(); i++) {
+            first = (first ^ label.charAt(i)) * FIRST_MULTIPLIER;
+            second = (second ^ label.charAt(i)) * SECOND_MULTIPLIER;
+        }
+        first = mix(first + children.size());
+        second = mix(second + children.size());
+        for (ITree child : children) {
+            structuralHash(child, result);
+            first = mix(first * FIRST_MULTIPLIER + result[0]);
+            second = mix(second * SECOND_MULTIPLIER + result[1]);
+        }
+        result[0] = first;
+        result[1] = second;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
 }
@@ -4,7 +4,10 @@ import org.ml_methods_group.common.Solution;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class Changes implements Serializable {
     private final Solution origin;
@@ -29,6 +32,14 @@ public class Changes implements Serializable {
         return changes;
     }
 
+    /**
+     * @return counts of code changes, which are equal for changes with the same multiset of code changes
+     */
+    public Map<CodeChange, Long> getChangesMultiset() {
+        return changes.stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(origin, target);
@@ -1,8 +1,8 @@
 package org.ml_methods_group.common.extractors;
 
 import org.ml_methods_group.common.FeaturesExtractor;
-import org.ml_methods_group.common.metrics.functions.FunctionsUtils;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,69 +10,111 @@ import java.util.stream.IntStream;
 
 public class BOWExtractor<T> implements FeaturesExtractor<List<T>, BOWExtractor.BOWVector> {
 
-    private final HashMap<String, Integer> indexes;
+    private final HashMap<Long, Integer> indexes;
     private final List<HashExtractor<T>> hashers;
 
-    public BOWExtractor(HashMap<String, Integer> indexes, List<HashExtractor<T>> hashers) {
+    public BOWExtractor(HashMap<Long, Integer> indexes, List<HashExtractor<T>> hashers) {
         this.indexes = indexes;
         this.hashers = hashers;
     }
 
     @Override
     public BOWVector process(List<T> values) {
-        final int[] result = new int[indexes.size()];
+        final int[] found = new int[values.size() * hashers.size()];
+        int size = 0;
         for (T value : values) {
             for (HashExtractor<T> hasher : hashers) {
-                int index = indexes.getOrDefault(hasher.process(value), -1);
+                int index = indexes.getOrDefault(hasher.hash(value), -1);
                 if (index != -1) {
-                    result[index] += 1;
+                    found[size++] = index;
                 }
             }
         }
-        return new BOWVector(result, values.size() * hashers.size());
+        Arrays.sort(found, 0, size);
+        int nonZeros = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || found[i] != found[i - 1]) {
+                nonZeros++;
+            }
+        }
+        final int[] words = new int[nonZeros];
+        final int[] counters = new int[nonZeros];
+        int position = -1;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || found[i] != found[i - 1]) {
+                words[++position] = found[i];
+            }
+            counters[position]++;
+        }
+        return new BOWVector(words, counters, values.size() * hashers.size());
     }
 
-    public static <T> HashMap<String, Integer> mostCommon(List<HashExtractor<T>> hashers, List<T> values, int n) {
-        final HashMap<String, Integer> counters = new HashMap<>();
+    public static <T> HashMap<Long, Integer> mostCommon(List<HashExtractor<T>> hashers, List<T> values, int n) {
+        final HashMap<Long, Integer> counters = new HashMap<>();
         for (T value : values) {
             for (HashExtractor<T> hasher : hashers) {
-                final String hash = hasher.process(value);
+                final long hash = hasher.hash(value);
                 counters.put(hash, counters.getOrDefault(hash, 0) + 1);
             }
         }
-        final HashMap<String, Integer> indexes = new HashMap<>();
+        final HashMap<Long, Integer> indexes = new HashMap<>();
         counters.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
                 .limit(n)
                 .map(Map.Entry::getKey)
                 .forEachOrdered(hash -> indexes.put(hash, indexes.size()));
         return indexes;
     }
 
+    /**
+     * Sparse vector: sorted indexes of words with non-zero counters
+     */
     public static class BOWVector {
+        private final int[] words;
         private final int[] counters;
         private final double norm;
         private final double normApproximation;
 
-        private BOWVector(int[] counters, int wordsCount) {
+        private BOWVector(int[] words, int[] counters, int wordsCount) {
             final int sum = IntStream.of(counters).sum();
             final int squaredSum = IntStream.of(counters)
                     .map(x -> x * x)
                     .sum();
+            this.words = words;
             this.counters = counters;
             this.norm = Math.sqrt(squaredSum);
             this.normApproximation = Math.sqrt(squaredSum + (wordsCount - sum));
         }
 
+        public int getNonZerosCount() {
+            return words.length;
+        }
+    }
+
+    private static int scalarProduct(BOWVector a, BOWVector b) {
+        int result = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.words.length && j < b.words.length) {
+            if (a.words[i] < b.words[j]) {
+                i++;
+            } else if (a.words[i] > b.words[j]) {
+                j++;
+            } else {
+                result += a.counters[i++] * b.counters[j++];
+            }
+        }
+        return result;
     }
 
     public static double cosineDistance(BOWVector a, BOWVector b) {
-        int p = FunctionsUtils.scalarProduct(a.counters, b.counters);
+        int p = scalarProduct(a, b);
         return a.norm == 0 || b.norm == 0 ? 1 : (1 - p / (a.norm * b.norm)) / 2;
     }
 
     public static double smartCosineDistance(BOWVector a, BOWVector b) {
-        int p = FunctionsUtils.scalarProduct(a.counters, b.counters);
+        int p = scalarProduct(a, b);
         return a.normApproximation == 0 || b.normApproximation == 0 ?
                 1 : (1 - p / (a.normApproximation * b.normApproximation)) / 2;
     }
@@ -0,0 +1,172 @@
+package org.ml_methods_group.common.extractors;
+
+import org.ml_methods_group.common.FeaturesExtractor;
+import org.ml_methods_group.common.SimilarityMetric;
+import org.ml_methods_group.common.ast.changes.ChangeType;
+import org.ml_methods_group.common.ast.changes.CodeChange;
+import org.ml_methods_group.common.ast.changes.CodeChange.NodeContext;
+import org.ml_methods_group.common.ast.changes.CodeChange.NodeState;
+import org.ml_methods_group.common.metrics.functions.CodeChangeSimilarityMetric;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.ml_methods_group.common.ast.changes.CodeChange.NO_LABEL;
+
+/**
+ * Labels and java types are replaced by ids from the dictionary of this extractor,
+ * so only changes encoded by the same extractor can be compared.
+ * {@link #getSimilarityMetric()} gives exactly the same scores as {@link CodeChangeSimilarityMetric},
+ * it is only about 1.5-2x faster, because most pairs differ by element type anyway.
+ * After {@link #freeze()} the dictionary doesn't grow and changes are encoded without locking,
+ * unseen labels get shared unknown id, which isn't equal to any id, even to itself. So scores stay exact
+ * if at least one of compared changes was encoded before freezing.
+ */
+public class EncodedCodeChangeExtractor implements FeaturesExtractor<CodeChange,
+        EncodedCodeChangeExtractor.EncodedCodeChange> {
+
+    private static final int NO_LABEL_ID = 0;
+    private static final int UNKNOWN_ID = -1;
+
+    private static final int ORIGINAL = 0;
+    private static final int DESTINATION = 9;
+
+    private static final int NODE = 0;
+    private static final int PARENT = 3;
+    private static final int PARENT_OF_PARENT = 6;
+
+    private static final int TYPE = 0;
+    private static final int LABEL = 1;
+    private static final int JAVA_TYPE = 2;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private volatile boolean isFrozen = false;
+
+    public EncodedCodeChangeExtractor() {
+        ids.put(NO_LABEL, NO_LABEL_ID);
+    }
+
+    @Override
+    public EncodedCodeChange process(CodeChange value) {
+        if (isFrozen) {
+            return encode(value, true);
+        }
+        synchronized (ids) {
+            return encode(value, isFrozen);
+        }
+    }
+
+    /**
+     * Stops growth of the dictionary, should be called after training
+     */
+    public void freeze() {
+        synchronized (ids) {
+            isFrozen = true;
+        }
+    }
+
+    private EncodedCodeChange encode(CodeChange value, boolean frozen) {
+        final int[] states = new int[18];
+        encodeContext(value.getOriginalContext(), states, ORIGINAL, frozen);
+        encodeContext(value.getDestinationContext(), states, DESTINATION, frozen);
+        final ChangeType changeType = value.getChangeType();
+        final int elementType = changeType.ordinal() + 10 * states[ORIGINAL + NODE + TYPE] +
+                10000 * states[DESTINATION + NODE + TYPE];
+        return new EncodedCodeChange(changeType, elementType, states);
+    }
+
+    private void encodeContext(NodeContext context, int[] states, int offset, boolean frozen) {
+        encodeState(context.getNode(), states, offset + NODE, frozen);
+        encodeState(context.getParent(), states, offset + PARENT, frozen);
+        encodeState(context.getParentOfParent(), states, offset + PARENT_OF_PARENT, frozen);
+    }
+
+    private void encodeState(NodeState state, int[] states, int offset, boolean frozen) {
+        states[offset + TYPE] = state.getType().ordinal();
+        states[offset + LABEL] = idFor(state.getLabel(), frozen);
+        states[offset + JAVA_TYPE] = idFor(state.getJavaType(), frozen);
+    }
+
+    private int idFor(String text, boolean frozen) {
+        if (frozen) {
+            return ids.getOrDefault(text, UNKNOWN_ID);
+        }
+        return ids.computeIfAbsent(text, x -> ids.size());
+    }
+
+    public SimilarityMetric<EncodedCodeChange> getSimilarityMetric() {
+        return new EncodedSimilarityMetric();
+    }
+
+    private class EncodedSimilarityMetric implements SimilarityMetric<EncodedCodeChange> {
+
+        @Override
+        public double measure(EncodedCodeChange first, EncodedCodeChange second) {
+            if (first.getSource() != second.getSource()) {
+                throw new IllegalStateException();
+            }
+            if (first.elementType != second.elementType) {
+                return 0;
+            }
+            final int[] a = first.states;
+            final int[] b = second.states;
+            switch (first.changeType) {
+                case DELETE:
+                    return matchState(a, b, ORIGINAL + NODE) * matchParents(a, b, ORIGINAL);
+                case INSERT:
+                    return matchState(a, b, DESTINATION + NODE) * matchParents(a, b, DESTINATION);
+                case MOVE:
+                case UPDATE:
+                    return mean(matchState(a, b, ORIGINAL + NODE), matchState(a, b, DESTINATION + NODE)) *
+                            mean(matchParents(a, b, DESTINATION), matchParents(a, b, ORIGINAL));
+                default:
+                    throw new RuntimeException("Unexpected enum type: " + first.changeType);
+            }
+        }
+
+        private double matchState(int[] a, int[] b, int offset) {
+            if (a[offset + TYPE] != b[offset + TYPE]) {
+                return 0;
+            }
+            final double labelModifier = isSame(a[offset + LABEL], b[offset + LABEL]) ? 1 : 0.5;
+            final int firstJavaType = a[offset + JAVA_TYPE];
+            final int secondJavaType = b[offset + JAVA_TYPE];
+            final double typeModifier = isSame(firstJavaType, secondJavaType) ? 1 : 0.5;
+            return firstJavaType != NO_LABEL_ID || secondJavaType != NO_LABEL_ID ?
+                    (labelModifier + typeModifier) / 2 : labelModifier;
+        }
+
+        private boolean isSame(int firstId, int secondId) {
+            return firstId == secondId && firstId != UNKNOWN_ID;
+        }
+
+        private double matchParents(int[] a, int[] b, int context) {
+            return matchState(a, b, context + PARENT) * matchState(a, b, context + PARENT_OF_PARENT);
+        }
+
+        private double mean(double a, double b) {
+            return (a + b) / 2;
+        }
+
+        @Override
+        public int getElementType(EncodedCodeChange value) {
+            return value.elementType;
+        }
+    }
+
+    public class EncodedCodeChange {
+        private final ChangeType changeType;
+        private final int elementType;
+        private final int[] states;
+
+        private EncodedCodeChange(ChangeType changeType, int elementType, int[] states) {
+            this.changeType = changeType;
+            this.elementType = elementType;
+            this.states = states;
+        }
+
+        private EncodedCodeChangeExtractor getSource() {
+            return EncodedCodeChangeExtractor.this;
+        }
+    }
+}
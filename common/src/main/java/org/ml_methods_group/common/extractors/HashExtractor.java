@@ -2,6 +2,7 @@ package org.ml_methods_group.common.extractors;
 
 import org.ml_methods_group.common.FeaturesExtractor;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -9,9 +10,11 @@ import java.util.stream.Collectors;
 
 public class HashExtractor<T> implements FeaturesExtractor<T, String> {
     final List<FeaturesExtractor<T, String>> hashers;
+    final List<HashComponent<T>> components;
 
-    public HashExtractor(List<FeaturesExtractor<T, String>> hashers) {
+    public HashExtractor(List<FeaturesExtractor<T, String>> hashers, List<HashComponent<T>> components) {
         this.hashers = hashers;
+        this.components = components;
     }
 
     @Override
@@ -21,12 +24,77 @@ public class HashExtractor<T> implements FeaturesExtractor<T, String> {
                 .collect(Collectors.joining("", "[", "]"));
     }
 
+    /**
+     * Streams the same characters, that {@link #process(Object)} would join, into 64-bit hash state,
+     * so equal tokens always get equal ids.
+     */
+    public long hash(T value) {
+        final HashState state = new HashState();
+        hash(value, state);
+        return state.getHash();
+    }
+
+    public void hash(T value, HashState state) {
+        state.putChar('[');
+        for (HashComponent<T> component : components) {
+            component.hash(value, state);
+        }
+        state.putChar(']');
+    }
+
     public static <T> HashExtractorBuilder<T> builder() {
         return new HashExtractorBuilder<>();
     }
 
+    @FunctionalInterface
+    public interface HashComponent<T> extends Serializable {
+        void hash(T value, HashState state);
+    }
+
+    public static class HashState {
+        private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+        private static final long PRIME = 0x100000001b3L;
+
+        private long hash = OFFSET_BASIS;
+
+        public void putChar(char c) {
+            hash = (hash ^ c) * PRIME;
+        }
+
+        public void putString(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                putChar(text.charAt(i));
+            }
+        }
+
+        public void putInt(int value) {
+            if (value < 0) {
+                putChar('-');
+            }
+            final long absolute = Math.abs((long) value);
+            long divisor = 1;
+            while (divisor * 10 <= absolute) {
+                divisor *= 10;
+            }
+            for (; divisor > 0; divisor /= 10) {
+                putChar((char) ('0' + absolute / divisor % 10));
+            }
+        }
+
+        public long getHash() {
+            long h = hash;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+
     public static class HashExtractorBuilder<T> {
         final List<FeaturesExtractor<T, String>> hashers = new ArrayList<>();
+        final List<HashComponent<T>> components = new ArrayList<>();
 
         private HashExtractorBuilder() {
         }
@@ -34,11 +102,20 @@ public class HashExtractor<T> implements FeaturesExtractor<T, String> {
         public <F> HashExtractorBuilder<T> hashComponent(FeaturesExtractor<T, F> extractor,
                                                          FeaturesExtractor<? super F, String> hasher) {
             hashers.add(extractor.compose(hasher));
+            components.add(streamingComponent(extractor, hasher));
             return this;
         }
 
         public <F> HashExtractorBuilder<T> hashComponent(FeaturesExtractor<T, F> extractor) {
             hashers.add(extractor.compose(Object::toString));
+            components.add((value, state) -> {
+                final F feature = extractor.process(value);
+                if (feature instanceof Integer) {
+                    state.putInt((Integer) feature);
+                } else {
+                    state.putString(feature.toString());
+                }
+            });
             return this;
         }
 
@@ -48,16 +125,39 @@ public class HashExtractor<T> implements FeaturesExtractor<T, String> {
                             .map(hasher::process)
                             .collect(Collectors.joining("|", "{", "}")));
             hashers.add(result);
+            final HashComponent<F> elementComponent = streamingComponent(x -> x, hasher);
+            components.add((value, state) -> {
+                final F[] array = extractor.process(value);
+                state.putChar('{');
+                for (int i = 0; i < array.length; i++) {
+                    if (i != 0) {
+                        state.putChar('|');
+                    }
+                    elementComponent.hash(array[i], state);
+                }
+                state.putChar('}');
+            });
             return this;
         }
 
         public <F> HashExtractorBuilder<T> append(String text) {
             hashers.add(x -> text);
+            components.add((value, state) -> state.putString(text));
             return this;
         }
 
         public HashExtractor<T> build() {
-            return new HashExtractor<>(hashers);
+            return new HashExtractor<>(hashers, components);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T, F> HashComponent<T> streamingComponent(FeaturesExtractor<T, F> extractor,
+                                                                  FeaturesExtractor<? super F, String> hasher) {
+            if (hasher instanceof HashExtractor) {
+                final HashExtractor<F> nested = (HashExtractor<F>) hasher;
+                return (value, state) -> nested.hash(extractor.process(value), state);
+            }
+            return (value, state) -> state.putString(hasher.process(extractor.process(value)));
         }
     }
 }
@@ -0,0 +1,56 @@
+package org.ml_methods_group.common.extractors;
+
+import org.ml_methods_group.common.FeaturesExtractor;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * MinHash signature of multiset of token ids (see {@link TokenIdsExtractor}).
+ * Repeated tokens are numbered, so probability of equal signature components
+ * is the same as similarity used by {@link org.ml_methods_group.common.metrics.functions.SortedJaccardDistanceFunction}.
+ */
+public class MinHashExtractor implements FeaturesExtractor<long[], long[]> {
+    private static final long OCCURRENCE_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    private final long[] seeds;
+
+    public MinHashExtractor(int hashesCount, long seed) {
+        final Random random = new Random(seed);
+        this.seeds = new long[hashesCount];
+        for (int i = 0; i < hashesCount; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    @Override
+    public long[] process(long[] tokens) {
+        final long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        int occurrence = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            occurrence = i != 0 && tokens[i] == tokens[i - 1] ? occurrence + 1 : 0;
+            final long element = mix(tokens[i] ^ (occurrence * OCCURRENCE_MULTIPLIER));
+            for (int j = 0; j < seeds.length; j++) {
+                final long hash = mix(element ^ seeds[j]);
+                if (hash < signature[j]) {
+                    signature[j] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public int getHashesCount() {
+        return seeds.length;
+    }
+
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,45 @@
+package org.ml_methods_group.common.extractors;
+
+import org.ml_methods_group.common.FeaturesExtractor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TokenIdsExtractor<T> implements FeaturesExtractor<List<T>, long[]> {
+
+    private final HashExtractor<T> hasher;
+    private final Map<Long, String> tokens;
+
+    public TokenIdsExtractor(HashExtractor<T> hasher, boolean checkCollisions) {
+        this.hasher = hasher;
+        this.tokens = checkCollisions ? new ConcurrentHashMap<>() : null;
+    }
+
+    public TokenIdsExtractor(HashExtractor<T> hasher) {
+        this(hasher, false);
+    }
+
+    @Override
+    public long[] process(List<T> values) {
+        final long[] result = new long[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            final T value = values.get(i);
+            result[i] = hasher.hash(value);
+            if (tokens != null) {
+                checkCollision(result[i], value);
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private void checkCollision(long id, T value) {
+        final String token = hasher.process(value);
+        final String previous = tokens.putIfAbsent(id, token);
+        if (previous != null && !previous.equals(token)) {
+            throw new IllegalStateException("Hash collision: " + previous + " and " + token + " got id " + id);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.ml_methods_group.common.metrics.algorithms;
+
+/**
+ * Keeps k indexes with the smallest distances. The largest of them is on the top,
+ * so it can be used as a pruning bound for the next candidates.
+ * Candidates are ordered by distance and then by index, so kept indexes don't depend on the order of offers.
+ * Candidate with the bound distance is kept only if its index is less than the index on the top.
+ */
+public class BoundedHeap {
+    private final int capacity;
+    private final int[] indexes;
+    private final double[] distances;
+    private int size = 0;
+
+    public BoundedHeap(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.indexes = new int[capacity];
+        this.distances = new double[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * @return distance, which candidate should beat to be kept
+     */
+    public double bound() {
+        return isFull() ? distances[0] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return distance, which candidate with the given index should beat to be kept,
+     * so distance capped by it can be offered as is
+     */
+    public double bound(int index) {
+        if (!isFull()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return index < indexes[0] ? Math.nextUp(distances[0]) : distances[0];
+    }
+
+    public boolean offer(int index, double distance) {
+        if (size < capacity) {
+            indexes[size] = index;
+            distances[size] = distance;
+            siftUp(size++);
+            return true;
+        }
+        if (distance > distances[0] || distance == distances[0] && index > indexes[0]) {
+            return false;
+        }
+        indexes[0] = index;
+        distances[0] = distance;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * Offers all candidates, which are kept by other heap
+     */
+    public void offerAll(BoundedHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.indexes[i], other.distances[i]);
+        }
+    }
+
+    /**
+     * @return kept indexes sorted by distance and then by index, heap becomes empty
+     */
+    public int[] pollAll() {
+        return pollAll(new double[size]);
+    }
+
+    /**
+     * @param sortedDistances array to store distances of returned indexes
+     * @return kept indexes sorted by distance and then by index, heap becomes empty
+     */
+    public int[] pollAll(double[] sortedDistances) {
+        final int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = indexes[0];
+            sortedDistances[i] = distances[0];
+            size--;
+            swap(0, size);
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private boolean greater(int i, int j) {
+        return distances[i] > distances[j] || distances[i] == distances[j] && indexes[i] > indexes[j];
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            final int parent = (position - 1) / 2;
+            if (!greater(position, parent)) {
+                break;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int largest = position;
+            final int left = 2 * position + 1;
+            final int right = left + 1;
+            if (left < size && greater(left, largest)) {
+                largest = left;
+            }
+            if (right < size && greater(right, largest)) {
+                largest = right;
+            }
+            if (largest == position) {
+                break;
+            }
+            swap(position, largest);
+            position = largest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        final int index = indexes[i];
+        indexes[i] = indexes[j];
+        indexes[j] = index;
+        final double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+    }
+}
@@ -1,10 +1,16 @@
 package org.ml_methods_group.common.metrics.algorithms;
 
 import java.util.Arrays;
-import java.util.Objects;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.BiPredicate;
+import java.util.function.IntFunction;
 
 public abstract class DamerauLevenshteinDistance {
+    private static final int WORD_SIZE = Long.SIZE;
+    private static final ThreadLocal<int[]> BUFFERS = ThreadLocal.withInitial(() -> new int[0]);
+
     private final int n;
     private final int m;
 
@@ -15,56 +21,100 @@ public abstract class DamerauLevenshteinDistance {
 
     protected abstract boolean test(int i, int j);
 
-    public int solve() {
-        int[] prev = new int[m + 1];
-        int[] current = new int[m + 1];
-        int[] next = new int[m + 1];
-        for (int j = 1; j <= m; j++) {
-            current[j] = j;
-        }
-        next[0] = 1;
-        for (int i = 1; i <= n; i++) {
-            for (int j = 1; j <= m; j++) {
-                if (i > 1 && j > 1 && test(i - 1, j - 2) && test(i - 2, j - 1)) {
-                    next[j] = min(
-                            current[j] + 1,
-                            next[j - 1] + 1,
-                            current[j - 1] + (test(i - 1, j - 1) ? 0 : 1),
-                            prev[j - 2] + 1
-                    );
-                } else {
-                    next[j] = min(
-                            current[j] + 1,
-                            next[j - 1] + 1,
-                            current[j - 1] + (test(i - 1, j - 1) ? 0 : 1)
-                    );
+    /**
+     * @return for every element of the text, bit mask of pattern positions with equal elements.
+     * Arbitrary predicate can't group equal elements, so every pair is tested
+     */
+    protected long[] matchMasks(boolean isFirstPattern) {
+        final int patternLength = isFirstPattern ? n : m;
+        final long[] masks = new long[isFirstPattern ? m : n];
+        for (int j = 0; j < masks.length; j++) {
+            for (int i = 0; i < patternLength; i++) {
+                if (isFirstPattern ? test(i, j) : test(j, i)) {
+                    masks[j] |= 1L << i;
                 }
             }
-            int[] tmp = prev;
-            prev = current;
-            current = next;
-            next = tmp;
-            Arrays.fill(next, 0);
-            next[0] = i + 1;
         }
-        return current[m];
+        return masks;
     }
 
-    private static int min(int a, int b, int c) {
-        if (b > c) {
-            b = c;
+    public int solve() {
+        if (n == 0 || m == 0) {
+            return Math.max(n, m);
+        }
+        if (n <= WORD_SIZE) {
+            return solveBitParallel(n, m, true);
         }
-        return a <= b ? a : b;
+        if (m <= WORD_SIZE) {
+            return solveBitParallel(m, n, false);
+        }
+        return solveDynamic();
     }
 
-    private static int min(int a, int b, int c, int d) {
-        if (a > b) {
-            a = b;
+    // Hyyro's bit-vector algorithm for edit distance with adjacent transpositions
+    private int solveBitParallel(int patternLength, int textLength, boolean isFirstPattern) {
+        final long last = 1L << (patternLength - 1);
+        long vp = -1;
+        long vn = 0;
+        long d0 = 0;
+        long previousMatches = 0;
+        int score = patternLength;
+        final long[] masks = matchMasks(isFirstPattern);
+        for (int j = 0; j < textLength; j++) {
+            final long matches = masks[j];
+            final long transpositions = ((~d0 & matches) << 1) & previousMatches;
+            d0 = (((matches & vp) + vp) ^ vp) | matches | vn | transpositions;
+            long hp = vn | ~(d0 | vp);
+            long hn = vp & d0;
+            if ((hp & last) != 0) {
+                score++;
+            } else if ((hn & last) != 0) {
+                score--;
+            }
+            hp = (hp << 1) | 1;
+            hn = hn << 1;
+            vp = hn | ~(d0 | hp);
+            vn = hp & d0;
+            previousMatches = matches;
         }
-        if (c > d) {
-            c = d;
+        return score;
+    }
+
+    // dynamic programming over three rows of thread-local buffer
+    private int solveDynamic() {
+        final int width = m + 1;
+        int[] buffer = BUFFERS.get();
+        if (buffer.length < 3 * width) {
+            buffer = new int[3 * width];
+            BUFFERS.set(buffer);
+        }
+        int prev = 0;
+        int current = width;
+        int next = 2 * width;
+        for (int j = 0; j <= m; j++) {
+            buffer[current + j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            buffer[next] = i;
+            for (int j = 1; j <= m; j++) {
+                final boolean equals = test(i - 1, j - 1);
+                int value = Math.min(buffer[current + j], buffer[next + j - 1]) + 1;
+                final int replace = buffer[current + j - 1] + (equals ? 0 : 1);
+                if (replace < value) {
+                    value = replace;
+                }
+                if (i > 1 && j > 1 && !equals && buffer[prev + j - 2] + 1 < value
+                        && test(i - 1, j - 2) && test(i - 2, j - 1)) {
+                    value = buffer[prev + j - 2] + 1;
+                }
+                buffer[next + j] = value;
+            }
+            final int tmp = prev;
+            prev = current;
+            current = next;
+            next = tmp;
         }
-        return a <= c ? a : c;
+        return buffer[current + m];
     }
 
     public static <V> DamerauLevenshteinDistance problemFor(V[] first, V[] second, BiPredicate<V, V> equalsFunction) {
@@ -78,32 +128,80 @@ public abstract class DamerauLevenshteinDistance {
 
 
     public static <V> DamerauLevenshteinDistance problemFor(V[] first, V[] second) {
-        return problemFor(first, second, Objects::equals);
+        return problemForKeys(first.length, i -> first[i], second.length, j -> second[j]);
     }
 
-    public static DamerauLevenshteinDistance problemFor(int[] first, int[] second) {
-        return new DamerauLevenshteinDistance(first.length, second.length) {
-            @Override
-            protected boolean test(int i, int j) {
-                return first[i] == second[j];
+    /**
+     * Elements are grouped by sorting, so elements are compared O((n + m) log(n + m)) times
+     */
+    public static <V> DamerauLevenshteinDistance problemFor(V[] first, V[] second, Comparator<? super V> comparator) {
+        final int n = first.length;
+        final Integer[] order = new Integer[n + second.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        final IntFunction<V> element = k -> k < n ? first[k] : second[k - n];
+        Arrays.sort(order, (a, b) -> comparator.compare(element.apply(a), element.apply(b)));
+        final int[] classes = new int[order.length];
+        int classesCount = 0;
+        for (int k = 0; k < order.length; k++) {
+            if (k > 0 && comparator.compare(element.apply(order[k - 1]), element.apply(order[k])) != 0) {
+                classesCount++;
             }
-        };
+            classes[order[k]] = classesCount;
+        }
+        return problemForClasses(Arrays.copyOf(classes, n), Arrays.copyOfRange(classes, n, classes.length),
+                classesCount + 1);
+    }
+
+    public static DamerauLevenshteinDistance problemFor(int[] first, int[] second) {
+        return problemForKeys(first.length, i -> first[i], second.length, j -> second[j]);
     }
 
     public static DamerauLevenshteinDistance problemFor(long[] first, long[] second) {
+        return problemForKeys(first.length, i -> first[i], second.length, j -> second[j]);
+    }
+
+    public static DamerauLevenshteinDistance problemFor(String first, String second) {
+        return problemForKeys(first.length(), first::charAt, second.length(), second::charAt);
+    }
+
+    // equal keys are grouped by hash map
+    private static <K> DamerauLevenshteinDistance problemForKeys(int n, IntFunction<K> first,
+                                                                 int m, IntFunction<K> second) {
+        final Map<K, Integer> classes = new HashMap<>();
+        final int[] firstClasses = new int[n];
+        for (int i = 0; i < n; i++) {
+            firstClasses[i] = classes.computeIfAbsent(first.apply(i), key -> classes.size());
+        }
+        final int[] secondClasses = new int[m];
+        for (int j = 0; j < m; j++) {
+            secondClasses[j] = classes.computeIfAbsent(second.apply(j), key -> classes.size());
+        }
+        return problemForClasses(firstClasses, secondClasses, classes.size());
+    }
+
+    // elements are equal, if they have equal classes, so match masks are built from one mask per class
+    private static DamerauLevenshteinDistance problemForClasses(int[] first, int[] second, int classesCount) {
         return new DamerauLevenshteinDistance(first.length, second.length) {
             @Override
             protected boolean test(int i, int j) {
                 return first[i] == second[j];
             }
-        };
-    }
 
-    public static DamerauLevenshteinDistance problemFor(String first, String second) {
-        return new DamerauLevenshteinDistance(first.length(), second.length()) {
             @Override
-            protected boolean test(int i, int j) {
-                return first.charAt(i) == second.charAt(j);
+            protected long[] matchMasks(boolean isFirstPattern) {
+                final int[] pattern = isFirstPattern ? first : second;
+                final int[] text = isFirstPattern ? second : first;
+                final long[] classMasks = new long[classesCount];
+                for (int i = 0; i < pattern.length; i++) {
+                    classMasks[pattern[i]] |= 1L << i;
+                }
+                final long[] masks = new long[text.length];
+                for (int j = 0; j < text.length; j++) {
+                    masks[j] = classMasks[text[j]];
+                }
+                return masks;
             }
         };
     }
@@ -0,0 +1,87 @@
+package org.ml_methods_group.common.metrics.algorithms;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Min-heap of primitive longs. Keys are usually packed as (priority << 32) | payload,
+ * where priority is non-negative float bits, which have the same order as the floats.
+ */
+public class LongHeap {
+    private long[] keys;
+    private int size = 0;
+
+    public LongHeap(int capacity) {
+        this.keys = new long[Math.max(1, capacity)];
+    }
+
+    public LongHeap() {
+        this(16);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(long key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * keys.length);
+        }
+        int position = size++;
+        while (position > 0) {
+            final int parent = (position - 1) / 2;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[position] = keys[parent];
+            position = parent;
+        }
+        keys[position] = key;
+    }
+
+    public long peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return keys[0];
+    }
+
+    public long poll() {
+        final long result = peek();
+        final long last = keys[--size];
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= last) {
+                break;
+            }
+            keys[position] = keys[child];
+            position = child;
+        }
+        keys[position] = last;
+        return result;
+    }
+
+    public static long pack(float priority, int payload) {
+        // adding zero turns -0.0 into 0.0, which has non-negative bits
+        return ((long) Float.floatToIntBits(priority + 0.0f) << 32) | (payload & 0xffffffffL);
+    }
+
+    public static float getPriority(long key) {
+        return Float.intBitsToFloat((int) (key >>> 32));
+    }
+
+    public static int getPayload(long key) {
+        return (int) key;
+    }
+}
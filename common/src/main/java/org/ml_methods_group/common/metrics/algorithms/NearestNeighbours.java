@@ -0,0 +1,83 @@
+package org.ml_methods_group.common.metrics.algorithms;
+
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * k nearest targets with their distances, so distances don't have to be evaluated again.
+ * Blocks of targets are scanned in parallel, every block keeps its own heap, and full heaps publish
+ * their bounds, so all blocks prune candidates by the tightest bound found so far.
+ * Ties are broken by index, so result is the same as of sequential scan and doesn't depend on scheduling.
+ */
+public class NearestNeighbours {
+    private static final int BLOCK_SIZE = 256;
+
+    private final int[] indexes;
+    private final double[] distances;
+
+    private NearestNeighbours(int[] indexes, double[] distances) {
+        this.indexes = indexes;
+        this.distances = distances;
+    }
+
+    public static <V> NearestNeighbours search(V value, List<V> targets, int k, DistanceFunction<V> metric) {
+        final int blocksCount = (targets.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        // bits of non-negative doubles have the same order as the doubles
+        final AtomicLong sharedBound = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+        final BoundedHeap heap = new BoundedHeap(k);
+        IntStream.range(0, blocksCount)
+                .parallel()
+                .mapToObj(block -> scanBlock(value, targets, k, metric, block * BLOCK_SIZE, sharedBound))
+                .forEachOrdered(heap::offerAll);
+        final double[] sortedDistances = new double[heap.size()];
+        final int[] sortedIndexes = heap.pollAll(sortedDistances);
+        return new NearestNeighbours(sortedIndexes, sortedDistances);
+    }
+
+    /**
+     * @param distances distances from value to every target, for example found by one bulk scan
+     */
+    public static NearestNeighbours select(double[] distances, int k) {
+        final BoundedHeap heap = new BoundedHeap(k);
+        for (int i = 0; i < distances.length; i++) {
+            heap.offer(i, distances[i]);
+        }
+        final double[] sortedDistances = new double[heap.size()];
+        final int[] sortedIndexes = heap.pollAll(sortedDistances);
+        return new NearestNeighbours(sortedIndexes, sortedDistances);
+    }
+
+    private static <V> BoundedHeap scanBlock(V value, List<V> targets, int k, DistanceFunction<V> metric,
+                                             int start, AtomicLong sharedBound) {
+        final BoundedHeap heap = new BoundedHeap(k);
+        final int end = Math.min(targets.size(), start + BLOCK_SIZE);
+        for (int i = start; i < end; i++) {
+            // candidates come in increasing order of indexes, so they lose ties with own heap,
+            // but can win ties with heaps of other blocks, so equal distance must be distinguishable from their bound
+            final double bound = Math.min(heap.bound(), Math.nextUp(Double.longBitsToDouble(sharedBound.get())));
+            final double distance = metric.distance(value, targets.get(i), bound);
+            if (distance < bound && heap.offer(i, distance) && heap.isFull()) {
+                sharedBound.accumulateAndGet(Double.doubleToLongBits(heap.bound()), Math::min);
+            }
+        }
+        return heap;
+    }
+
+    public int size() {
+        return indexes.length;
+    }
+
+    /**
+     * @return index of i-th nearest target
+     */
+    public int getIndex(int i) {
+        return indexes[i];
+    }
+
+    public double getDistance(int i) {
+        return distances[i];
+    }
+}
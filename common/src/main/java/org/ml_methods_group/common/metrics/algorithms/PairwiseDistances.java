@@ -0,0 +1,128 @@
+package org.ml_methods_group.common.metrics.algorithms;
+
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.parallel.ParallelContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pairs of values closer than limit. Triangle of pairs is split into square tiles of equal size,
+ * so values of a tile stay in cache and tiles take similar time. Every tile is separate task of the given
+ * context, so idle threads take next tiles. Results are concatenated in order of tiles,
+ * so they don't depend on scheduling.
+ */
+public class PairwiseDistances {
+    private static final int DEFAULT_TILE_SIZE = 64;
+
+    private final int[] first;
+    private final int[] second;
+    private final double[] distances;
+
+    private PairwiseDistances(int[] first, int[] second, double[] distances) {
+        this.first = first;
+        this.second = second;
+        this.distances = distances;
+    }
+
+    public static <T> PairwiseDistances closePairs(List<T> values, DistanceFunction<T> metric, double limit,
+                                                   ParallelContext context) {
+        return closePairs(values, metric, limit, DEFAULT_TILE_SIZE, context);
+    }
+
+    public static <T> PairwiseDistances closePairs(List<T> values, DistanceFunction<T> metric, double limit,
+                                                   int tileSize, ParallelContext context) {
+        final int blocksCount = (values.size() + tileSize - 1) / tileSize;
+        final int tilesCount = blocksCount * (blocksCount + 1) / 2;
+        final int[] rowBlocks = new int[tilesCount];
+        final int[] columnBlocks = new int[tilesCount];
+        for (int row = 0, tile = 0; row < blocksCount; row++) {
+            for (int column = 0; column <= row; column++, tile++) {
+                rowBlocks[tile] = row;
+                columnBlocks[tile] = column;
+            }
+        }
+        final List<Integer> order = new ArrayList<>(tilesCount);
+        for (int tile = 0; tile < tilesCount; tile++) {
+            order.add(tile);
+        }
+        final List<Tile> tiles = context.runEach(order, tile -> computeTile(values, metric, limit,
+                rowBlocks[tile] * tileSize, columnBlocks[tile] * tileSize, tileSize));
+        int size = 0;
+        for (Tile tile : tiles) {
+            size += tile.size;
+        }
+        final int[] first = new int[size];
+        final int[] second = new int[size];
+        final double[] distances = new double[size];
+        int offset = 0;
+        for (Tile tile : tiles) {
+            System.arraycopy(tile.first, 0, first, offset, tile.size);
+            System.arraycopy(tile.second, 0, second, offset, tile.size);
+            System.arraycopy(tile.distances, 0, distances, offset, tile.size);
+            offset += tile.size;
+        }
+        return new PairwiseDistances(first, second, distances);
+    }
+
+    // pairs (i, j) with i from column block, j from row block and i < j
+    private static <T> Tile computeTile(List<T> values, DistanceFunction<T> metric, double limit,
+                                        int rowStart, int columnStart, int tileSize) {
+        final Tile tile = new Tile();
+        final int rowEnd = Math.min(values.size(), rowStart + tileSize);
+        final int columnEnd = Math.min(values.size(), columnStart + tileSize);
+        for (int j = rowStart; j < rowEnd; j++) {
+            final T value = values.get(j);
+            final int end = Math.min(columnEnd, j);
+            for (int i = columnStart; i < end; i++) {
+                final double distance = metric.distance(value, values.get(i), limit);
+                if (distance < limit) {
+                    tile.add(i, j, distance);
+                }
+            }
+        }
+        return tile;
+    }
+
+    public int size() {
+        return first.length;
+    }
+
+    /**
+     * @return smaller index of k-th pair
+     */
+    public int getFirst(int k) {
+        return first[k];
+    }
+
+    /**
+     * @return greater index of k-th pair
+     */
+    public int getSecond(int k) {
+        return second[k];
+    }
+
+    public double getDistance(int k) {
+        return distances[k];
+    }
+
+    private static class Tile {
+        private int[] first = new int[0];
+        private int[] second = new int[0];
+        private double[] distances = new double[0];
+        private int size = 0;
+
+        private void add(int from, int to, double distance) {
+            if (size == first.length) {
+                final int capacity = Math.max(16, 2 * size);
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+                distances = Arrays.copyOf(distances, capacity);
+            }
+            first[size] = from;
+            second[size] = to;
+            distances[size++] = distance;
+        }
+    }
+}
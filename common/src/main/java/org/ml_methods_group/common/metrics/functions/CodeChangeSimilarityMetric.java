@@ -6,6 +6,8 @@ import org.ml_methods_group.common.ast.changes.CodeChange.NodeContext;
 import org.ml_methods_group.common.ast.changes.CodeChange.NodeState;
 import org.ml_methods_group.common.metrics.algorithms.DamerauLevenshteinDistance;
 
+import java.util.Comparator;
+
 import static org.ml_methods_group.common.ast.changes.CodeChange.NO_LABEL;
 
 public class CodeChangeSimilarityMetric implements SimilarityMetric<CodeChange> {
@@ -74,7 +76,8 @@ public class CodeChangeSimilarityMetric implements SimilarityMetric<CodeChange>
         if (a.length == 0 && b.length == 0) {
             return 1;
         }
-        final int penalty = DamerauLevenshteinDistance.problemFor(a, b, (x, y) -> x.getType() == y.getType()).solve();
+        final int penalty = DamerauLevenshteinDistance.problemFor(a, b, Comparator.comparing(NodeState::getType))
+                .solve();
         return 1 - (double) penalty / Math.max(a.length, b.length);
     }
 
@@ -0,0 +1,128 @@
+package org.ml_methods_group.common.metrics.functions;
+
+import java.util.List;
+
+/**
+ * Row-major storage of equal-length vectors with cached norms for one-against-all cosine distances.
+ * Rows can be stored as floats to halve memory traffic, products are still accumulated in doubles.
+ */
+public class DenseVectors {
+    private final int size;
+    private final int dimension;
+    private final double[] doubles;
+    private final float[] floats;
+    private final double[] squaredNorms;
+
+    private DenseVectors(int size, int dimension, double[] doubles, float[] floats, double[] squaredNorms) {
+        this.size = size;
+        this.dimension = dimension;
+        this.doubles = doubles;
+        this.floats = floats;
+        this.squaredNorms = squaredNorms;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public boolean isSinglePrecision() {
+        return floats != null;
+    }
+
+    public double cosineDistance(double[] query, int row) {
+        if (floats == null) {
+            return 1 - FunctionsUtils.cosineSimilarity(product(query, row),
+                    FunctionsUtils.scalarProduct(query, query), squaredNorms[row]);
+        }
+        final float[] singleQuery = FunctionsUtils.toFloats(query);
+        return 1 - FunctionsUtils.cosineSimilarity(product(singleQuery, row),
+                FunctionsUtils.scalarProduct(singleQuery, singleQuery), squaredNorms[row]);
+    }
+
+    public double[] cosineDistances(double[] query) {
+        final double[] result = new double[size];
+        cosineDistances(query, result);
+        return result;
+    }
+
+    public void cosineDistances(double[] query, double[] result) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Unexpected vector length: " + query.length);
+        }
+        final float[] singleQuery = floats == null ? null : FunctionsUtils.toFloats(query);
+        final double squaredNorm = singleQuery == null
+                ? FunctionsUtils.scalarProduct(query, query)
+                : FunctionsUtils.scalarProduct(singleQuery, singleQuery);
+        for (int row = 0; row < size; row++) {
+            final double product = singleQuery != null ? product(singleQuery, row) : product(query, row);
+            result[row] = 1 - FunctionsUtils.cosineSimilarity(product, squaredNorm, squaredNorms[row]);
+        }
+    }
+
+    private double product(double[] query, int row) {
+        final int offset = row * dimension;
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        final int bound = dimension & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            s0 += query[i] * doubles[offset + i];
+            s1 += query[i + 1] * doubles[offset + i + 1];
+            s2 += query[i + 2] * doubles[offset + i + 2];
+            s3 += query[i + 3] * doubles[offset + i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += query[i] * doubles[offset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private double product(float[] query, int row) {
+        final int offset = row * dimension;
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        final int bound = dimension & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            s0 += query[i] * floats[offset + i];
+            s1 += query[i + 1] * floats[offset + i + 1];
+            s2 += query[i + 2] * floats[offset + i + 2];
+            s3 += query[i + 3] * floats[offset + i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += query[i] * floats[offset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    public static DenseVectors of(List<double[]> vectors, boolean singlePrecision) {
+        final int size = vectors.size();
+        final int dimension = size == 0 ? 0 : vectors.get(0).length;
+        final double[] doubles = singlePrecision ? null : new double[size * dimension];
+        final float[] floats = singlePrecision ? new float[size * dimension] : null;
+        final double[] squaredNorms = new double[size];
+        for (int row = 0; row < size; row++) {
+            final double[] vector = vectors.get(row);
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException("Unexpected vector length: " + vector.length);
+            }
+            if (singlePrecision) {
+                final float[] converted = FunctionsUtils.toFloats(vector);
+                System.arraycopy(converted, 0, floats, row * dimension, dimension);
+                squaredNorms[row] = FunctionsUtils.scalarProduct(converted, converted);
+            } else {
+                System.arraycopy(vector, 0, doubles, row * dimension, dimension);
+                squaredNorms[row] = FunctionsUtils.scalarProduct(vector, vector);
+            }
+        }
+        return new DenseVectors(size, dimension, doubles, floats, squaredNorms);
+    }
+}
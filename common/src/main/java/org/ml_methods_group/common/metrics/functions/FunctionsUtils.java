@@ -1,35 +1,108 @@
 package org.ml_methods_group.common.metrics.functions;
 
-import java.util.Arrays;
-
+/**
+ * Dense loops are unrolled by four with independent accumulators,
+ * so JIT can keep them in registers and auto-vectorize them.
+ */
 public class FunctionsUtils {
     public static int scalarProduct(int[] a, int[] b) {
-        int sum = 0;
-        for (int i = 0; i < a.length; i++) {
-            sum += a[i] * b[i];
+        int s0 = 0;
+        int s1 = 0;
+        int s2 = 0;
+        int s3 = 0;
+        final int bound = a.length & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
         }
-        return sum;
+        return s0 + s1 + s2 + s3;
     }
 
+    public static double scalarProduct(double[] a, double[] b) {
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        final int bound = a.length & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    public static double scalarProduct(float[] a, float[] b) {
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        final int bound = a.length & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
 
     public static double cosineSimilarity(double[] a, double[] b) {
-        double sum = 0;
-        double normA = 0;
-        double normB = 0;
-        for (int i = 0; i < a.length; i++) {
-            sum += a[i] * b[i];
-            normA += a[i] * a[i];
-            normB += b[i] * b[i];
+        double p0 = 0;
+        double p1 = 0;
+        double a0 = 0;
+        double a1 = 0;
+        double b0 = 0;
+        double b1 = 0;
+        final int bound = a.length & ~1;
+        int i = 0;
+        for (; i < bound; i += 2) {
+            final double x0 = a[i];
+            final double y0 = b[i];
+            final double x1 = a[i + 1];
+            final double y1 = b[i + 1];
+            p0 += x0 * y0;
+            a0 += x0 * x0;
+            b0 += y0 * y0;
+            p1 += x1 * y1;
+            a1 += x1 * x1;
+            b1 += y1 * y1;
         }
-        return sum == 0 ? 0 : (1 + sum / Math.sqrt(normA * normB)) / 2;
+        if (i < a.length) {
+            p0 += a[i] * b[i];
+            a0 += a[i] * a[i];
+            b0 += b[i] * b[i];
+        }
+        return cosineSimilarity(p0 + p1, a0 + a1, b0 + b1);
+    }
+
+    public static double cosineSimilarity(float[] a, float[] b) {
+        return cosineSimilarity(scalarProduct(a, b), scalarProduct(a, a), scalarProduct(b, b));
+    }
+
+    public static double cosineSimilarity(double product, double squaredNormA, double squaredNormB) {
+        return product == 0 ? 0 : (1 + product / Math.sqrt(squaredNormA * squaredNormB)) / 2;
     }
 
     public static double[] sum(double[]... vectors) {
         final double[] result = new double[vectors[0].length];
         for (double[] vector : vectors) {
-            for (int i = 0; i < result.length; i++) {
-                result[i] += vector[i];
-            }
+            add(result, vector);
         }
         return result;
     }
@@ -37,7 +110,15 @@ public class FunctionsUtils {
 
     public static double[] sum(double[] a, double[] b) {
         final double[] result = new double[a.length];
-        for (int i = 0; i < result.length; i++) {
+        final int bound = result.length & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            result[i] = a[i] + b[i];
+            result[i + 1] = a[i + 1] + b[i + 1];
+            result[i + 2] = a[i + 2] + b[i + 2];
+            result[i + 3] = a[i + 3] + b[i + 3];
+        }
+        for (; i < result.length; i++) {
             result[i] = a[i] + b[i];
         }
         return result;
@@ -45,7 +126,15 @@ public class FunctionsUtils {
 
 
     public static void add(double[] vector, double[] delta) {
-        for (int i = 0; i < vector.length; i++) {
+        final int bound = vector.length & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            vector[i] += delta[i];
+            vector[i + 1] += delta[i + 1];
+            vector[i + 2] += delta[i + 2];
+            vector[i + 3] += delta[i + 3];
+        }
+        for (; i < vector.length; i++) {
             vector[i] += delta[i];
         }
     }
@@ -59,11 +148,23 @@ public class FunctionsUtils {
         return result;
     }
 
+    public static float[] toFloats(double[] vector) {
+        final float[] result = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = (float) vector[i];
+        }
+        return result;
+    }
+
     public static double cosineDistance(double[] a, double[] b) {
         return 1 - cosineSimilarity(a, b);
     }
 
+    public static double cosineDistance(float[] a, float[] b) {
+        return 1 - cosineSimilarity(a, b);
+    }
+
     public static double norm(double[] a) {
-        return Math.sqrt(Arrays.stream(a).map(x -> x * x).sum());
+        return Math.sqrt(scalarProduct(a, a));
     }
 }
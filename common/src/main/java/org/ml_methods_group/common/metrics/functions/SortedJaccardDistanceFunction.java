@@ -0,0 +1,46 @@
+package org.ml_methods_group.common.metrics.functions;
+
+import org.ml_methods_group.common.DistanceFunction;
+
+/**
+ * Same as {@link JaccardDistanceFunction}, but multisets are represented as sorted arrays of token ids.
+ */
+public class SortedJaccardDistanceFunction implements DistanceFunction<long[]> {
+
+    @Override
+    public double distance(long[] first, long[] second) {
+        if (first.length == 0 && second.length == 0) {
+            return 0;
+        }
+        final int intersection = intersection(first, second);
+        return 1 - (double) intersection / (first.length + second.length - intersection);
+    }
+
+    @Override
+    public double distance(long[] first, long[] second, double upperBound) {
+        final int min = Math.min(first.length, second.length);
+        final int max = Math.max(first.length, second.length);
+        if (max != 0 && 1 - (double) min / max >= upperBound) {
+            return upperBound;
+        }
+        return Math.min(distance(first, second), upperBound);
+    }
+
+    private static int intersection(long[] first, long[] second) {
+        int intersection = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                intersection++;
+                i++;
+                j++;
+            }
+        }
+        return intersection;
+    }
+}
@@ -0,0 +1,58 @@
+package org.ml_methods_group.common.metrics.index;
+
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Approximate index, that proposes candidates for close pairs,
+ * so exact distances are evaluated only for them.
+ */
+public interface CandidatesIndex<T> {
+    void build(List<T> values);
+
+    /**
+     * @return sorted indexes of built values, that may be close to the given one
+     */
+    int[] getCandidates(T value);
+
+    /**
+     * @return sorted pairs of indexes of built values (i < j), packed as (i << 32) | j
+     */
+    long[] getCandidatePairs();
+
+    static long pack(int first, int second) {
+        return ((long) first << 32) | second;
+    }
+
+    static int getFirst(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    static int getSecond(long pair) {
+        return (int) pair;
+    }
+
+    /**
+     * Share of pairs closer than threshold, which are proposed by index
+     */
+    static <T> double pairsRecall(CandidatesIndex<T> index, List<T> values,
+                                  DistanceFunction<T> metric, double threshold) {
+        index.build(values);
+        final long[] candidates = index.getCandidatePairs();
+        int found = 0;
+        int total = 0;
+        for (int i = 0; i < values.size(); i++) {
+            for (int j = i + 1; j < values.size(); j++) {
+                if (metric.distance(values.get(i), values.get(j), threshold) < threshold) {
+                    total++;
+                    if (Arrays.binarySearch(candidates, pack(i, j)) >= 0) {
+                        found++;
+                    }
+                }
+            }
+        }
+        return total == 0 ? 1 : (double) found / total;
+    }
+}
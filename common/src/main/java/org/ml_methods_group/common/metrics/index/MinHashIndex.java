@@ -0,0 +1,102 @@
+package org.ml_methods_group.common.metrics.index;
+
+import org.ml_methods_group.common.FeaturesExtractor;
+import org.ml_methods_group.common.extractors.MinHashExtractor;
+
+import java.util.*;
+
+/**
+ * LSH banding over MinHash signatures of token multisets.
+ * Values with Jaccard similarity s share at least one bucket with probability 1 - (1 - s^rows)^bands,
+ * so more bands increase recall and more rows per band decrease the number of candidates.
+ */
+public class MinHashIndex<T> implements CandidatesIndex<T> {
+    private final FeaturesExtractor<T, long[]> tokensExtractor;
+    private final MinHashExtractor signatureExtractor;
+    private final int bands;
+    private final int rows;
+    private final Map<Long, List<Integer>> buckets = new HashMap<>();
+
+    public MinHashIndex(FeaturesExtractor<T, long[]> tokensExtractor, int bands, int rows, long seed) {
+        this.tokensExtractor = tokensExtractor;
+        this.signatureExtractor = new MinHashExtractor(bands * rows, seed);
+        this.bands = bands;
+        this.rows = rows;
+    }
+
+    public MinHashIndex(FeaturesExtractor<T, long[]> tokensExtractor, int bands, int rows) {
+        this(tokensExtractor, bands, rows, 239);
+    }
+
+    @Override
+    public void build(List<T> values) {
+        buckets.clear();
+        for (int i = 0; i < values.size(); i++) {
+            final long[] keys = bucketKeys(values.get(i));
+            for (long key : keys) {
+                final List<Integer> bucket = buckets.computeIfAbsent(key, x -> new ArrayList<>());
+                if (bucket.isEmpty() || bucket.get(bucket.size() - 1) != i) {
+                    bucket.add(i);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int[] getCandidates(T value) {
+        final long[] keys = bucketKeys(value);
+        return Arrays.stream(keys)
+                .mapToObj(key -> buckets.getOrDefault(key, Collections.emptyList()))
+                .flatMap(List::stream)
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    // pairs of all buckets are packed into one array, then sorted and deduplicated
+    @Override
+    public long[] getCandidatePairs() {
+        long total = 0;
+        for (List<Integer> bucket : buckets.values()) {
+            total += (long) bucket.size() * (bucket.size() - 1) / 2;
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many candidate pairs: " + total);
+        }
+        final long[] pairs = new long[(int) total];
+        int size = 0;
+        for (List<Integer> bucket : buckets.values()) {
+            for (int i = 0; i < bucket.size(); i++) {
+                for (int j = 0; j < i; j++) {
+                    pairs[size++] = CandidatesIndex.pack(bucket.get(j), bucket.get(i));
+                }
+            }
+        }
+        Arrays.parallelSort(pairs);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || pairs[unique - 1] != pairs[i]) {
+                pairs[unique++] = pairs[i];
+            }
+        }
+        return Arrays.copyOf(pairs, unique);
+    }
+
+    private long[] bucketKeys(T value) {
+        final long[] signature = signatureExtractor.process(tokensExtractor.process(value));
+        final long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = key * 0x100000001b3L + signature[band * rows + row];
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    public static double collisionProbability(double similarity, int bands, int rows) {
+        return 1 - Math.pow(1 - Math.pow(similarity, rows), bands);
+    }
+}
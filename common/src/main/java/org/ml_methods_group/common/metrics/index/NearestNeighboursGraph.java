@@ -0,0 +1,220 @@
+package org.ml_methods_group.common.metrics.index;
+
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Approximate k-nearest-neighbours graph built by NN-descent (Dong, Charikar, Li 2011):
+ * neighbours of neighbours are likely to be neighbours, so only pairs of values, which share a neighbour,
+ * are compared. Pairs are compared only if one of them is new in the list since the previous iteration.
+ */
+public class NearestNeighboursGraph {
+    private static final int MAX_ITERATIONS = 30;
+    private static final double TERMINATION_FACTOR = 0.001;
+    private static final int LOCKS_COUNT = 1024;
+
+    private final int k;
+    private final int[] neighbours;
+    private final double[] distances;
+    private final boolean[] isNew;
+    private final int[] sizes;
+    private final Object[] locks = new Object[LOCKS_COUNT];
+
+    private NearestNeighboursGraph(int size, int k) {
+        this.k = k;
+        this.neighbours = new int[size * k];
+        this.distances = new double[size * k];
+        this.isNew = new boolean[size * k];
+        this.sizes = new int[size];
+        Arrays.setAll(locks, i -> new Object());
+    }
+
+    public static <T> NearestNeighboursGraph build(List<T> values, DistanceFunction<T> metric, int k, long seed) {
+        final int size = values.size();
+        final int neighboursCount = Math.min(k, Math.max(0, size - 1));
+        final NearestNeighboursGraph graph = new NearestNeighboursGraph(size, neighboursCount);
+        if (neighboursCount == 0) {
+            return graph;
+        }
+        final Random random = new Random(seed);
+        for (int i = 0; i < size; i++) {
+            while (graph.sizes[i] < neighboursCount) {
+                final int candidate = random.nextInt(size);
+                if (candidate != i) {
+                    graph.insert(i, candidate, metric.distance(values.get(i), values.get(candidate)));
+                }
+            }
+        }
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            final int[][] newCandidates = new int[size][];
+            final int[][] oldCandidates = new int[size][];
+            graph.collectCandidates(newCandidates, oldCandidates, random.nextLong());
+            final AtomicLong updates = new AtomicLong();
+            IntStream.range(0, size)
+                    .parallel()
+                    .forEach(i -> updates.addAndGet(graph.join(values, metric, newCandidates[i], oldCandidates[i])));
+            if (updates.get() <= TERMINATION_FACTOR * size * neighboursCount) {
+                break;
+            }
+        }
+        return graph;
+    }
+
+    // local join: new candidates are compared with each other and with old ones
+    private <T> long join(List<T> values, DistanceFunction<T> metric, int[] newCandidates, int[] oldCandidates) {
+        long updates = 0;
+        for (int i = 0; i < newCandidates.length; i++) {
+            final int first = newCandidates[i];
+            for (int j = i + 1; j < newCandidates.length; j++) {
+                updates += compare(values, metric, first, newCandidates[j]);
+            }
+            for (int second : oldCandidates) {
+                updates += compare(values, metric, first, second);
+            }
+        }
+        return updates;
+    }
+
+    private <T> int compare(List<T> values, DistanceFunction<T> metric, int first, int second) {
+        if (first == second) {
+            return 0;
+        }
+        final double bound = Math.max(bound(first), bound(second));
+        final double distance = metric.distance(values.get(first), values.get(second), bound);
+        if (distance >= bound) {
+            return 0;
+        }
+        return (insert(first, second, distance) ? 1 : 0) + (insert(second, first, distance) ? 1 : 0);
+    }
+
+    private double bound(int index) {
+        synchronized (lock(index)) {
+            return distances[index * k + k - 1];
+        }
+    }
+
+    private boolean insert(int index, int neighbour, double distance) {
+        synchronized (lock(index)) {
+            final int offset = index * k;
+            final int size = sizes[index];
+            if (size == k && distance >= distances[offset + k - 1]) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (neighbours[offset + i] == neighbour) {
+                    return false;
+                }
+            }
+            int position = size == k ? k - 1 : size;
+            while (position > 0 && distances[offset + position - 1] > distance) {
+                neighbours[offset + position] = neighbours[offset + position - 1];
+                distances[offset + position] = distances[offset + position - 1];
+                isNew[offset + position] = isNew[offset + position - 1];
+                position--;
+            }
+            neighbours[offset + position] = neighbour;
+            distances[offset + position] = distance;
+            isNew[offset + position] = true;
+            if (size < k) {
+                sizes[index]++;
+            }
+            return true;
+        }
+    }
+
+    // striped locks, so lists of different values are mostly updated concurrently
+    private Object lock(int index) {
+        return locks[index % LOCKS_COUNT];
+    }
+
+    // forward and reverse neighbours, reverse lists are sampled down to k elements
+    private void collectCandidates(int[][] newCandidates, int[][] oldCandidates, long seed) {
+        final int size = sizes.length;
+        final int[] newCounts = new int[size];
+        final int[] oldCounts = new int[size];
+        final int[][] newReverse = new int[size][k];
+        final int[][] oldReverse = new int[size][k];
+        final int[] newReverseSeen = new int[size];
+        final int[] oldReverseSeen = new int[size];
+        final Random random = new Random(seed);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < sizes[i]; j++) {
+                final int position = i * k + j;
+                final int neighbour = neighbours[position];
+                if (isNew[position]) {
+                    newCounts[i]++;
+                    sample(newReverse[neighbour], newReverseSeen[neighbour]++, i, random);
+                } else {
+                    oldCounts[i]++;
+                    sample(oldReverse[neighbour], oldReverseSeen[neighbour]++, i, random);
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            newCandidates[i] = merge(i, true, newCounts[i], newReverse[i], Math.min(k, newReverseSeen[i]));
+            oldCandidates[i] = merge(i, false, oldCounts[i], oldReverse[i], Math.min(k, oldReverseSeen[i]));
+            for (int j = 0; j < sizes[i]; j++) {
+                isNew[i * k + j] = false;
+            }
+        }
+    }
+
+    // reservoir sampling
+    private static void sample(int[] reservoir, int seen, int value, Random random) {
+        if (seen < reservoir.length) {
+            reservoir[seen] = value;
+        } else {
+            final int position = random.nextInt(seen + 1);
+            if (position < reservoir.length) {
+                reservoir[position] = value;
+            }
+        }
+    }
+
+    private int[] merge(int index, boolean fresh, int count, int[] reverse, int reverseCount) {
+        final int[] result = new int[count + reverseCount];
+        int size = 0;
+        for (int j = 0; j < sizes[index]; j++) {
+            if (isNew[index * k + j] == fresh) {
+                result[size++] = neighbours[index * k + j];
+            }
+        }
+        System.arraycopy(reverse, 0, result, size, reverseCount);
+        size += reverseCount;
+        Arrays.sort(result, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || result[unique - 1] != result[i]) {
+                result[unique++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, unique);
+    }
+
+    public int size() {
+        return sizes.length;
+    }
+
+    /**
+     * @return number of neighbours of every value: min(k, size - 1)
+     */
+    public int getNeighboursCount() {
+        return k;
+    }
+
+    /**
+     * @return index of i-th closest neighbour of value
+     */
+    public int getNeighbour(int value, int i) {
+        return neighbours[value * k + i];
+    }
+
+    public double getDistance(int value, int i) {
+        return distances[value * k + i];
+    }
+}
@@ -0,0 +1,168 @@
+package org.ml_methods_group.common.metrics.index;
+
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vantage-point tree for nearest neighbour queries in metric space.
+ * Subtree is skipped, if lower bound of its distances (by triangle inequality) multiplied by slack
+ * is not less than the best found distance. Slack 1 gives exact search, greater values give approximation
+ * with at most slack times greater distance.
+ */
+public class VantagePointTree<V> {
+    private final List<V> values;
+    private final DistanceFunction<V> metric;
+    private final double slack;
+    private final Node root;
+    private final AtomicLong queriesCount = new AtomicLong();
+    private final AtomicLong evaluationsCount = new AtomicLong();
+
+    public VantagePointTree(List<V> values, DistanceFunction<V> metric, double slack, long seed) {
+        if (slack < 1) {
+            throw new IllegalArgumentException("Slack factor should be at least 1: " + slack);
+        }
+        this.values = new ArrayList<>(values);
+        this.metric = metric;
+        this.slack = slack;
+        final List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            indexes.add(i);
+        }
+        Collections.shuffle(indexes, new Random(seed));
+        this.root = build(indexes);
+    }
+
+    public VantagePointTree(List<V> values, DistanceFunction<V> metric, double slack) {
+        this(values, metric, slack, 239);
+    }
+
+    public VantagePointTree(List<V> values, DistanceFunction<V> metric) {
+        this(values, metric, 1);
+    }
+
+    private Node build(List<Integer> indexes) {
+        if (indexes.isEmpty()) {
+            return null;
+        }
+        final int vantagePoint = indexes.get(0);
+        final int size = indexes.size() - 1;
+        if (size == 0) {
+            return new Node(vantagePoint, 0, null, null);
+        }
+        final V vantageValue = values.get(vantagePoint);
+        final double[] distances = new double[size];
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            distances[i] = metric.distance(vantageValue, values.get(indexes.get(i + 1)));
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+        final int middle = size / 2;
+        final List<Integer> inside = new ArrayList<>(middle);
+        final List<Integer> outside = new ArrayList<>(size - middle);
+        for (int i = 0; i < size; i++) {
+            (i < middle ? inside : outside).add(indexes.get(order[i] + 1));
+        }
+        final double radius = distances[order[middle]];
+        return new Node(vantagePoint, radius, build(inside), build(outside));
+    }
+
+    /**
+     * @return index of one of the closest values, or -1 if tree is empty
+     */
+    public int nearest(V query) {
+        final Search search = new Search(query);
+        search.visit(root);
+        queriesCount.incrementAndGet();
+        evaluationsCount.addAndGet(search.evaluations);
+        return search.best;
+    }
+
+    public V get(int index) {
+        return values.get(index);
+    }
+
+    public List<V> getValues() {
+        return Collections.unmodifiableList(values);
+    }
+
+    public long getQueriesCount() {
+        return queriesCount.get();
+    }
+
+    public long getEvaluationsCount() {
+        return evaluationsCount.get();
+    }
+
+    /**
+     * @return number of distance evaluations avoided in comparison with linear scan
+     */
+    public long getSavedEvaluationsCount() {
+        return queriesCount.get() * values.size() - evaluationsCount.get();
+    }
+
+    private class Search {
+        private final V query;
+        private int best = -1;
+        private double bestDistance = Double.POSITIVE_INFINITY;
+        private int evaluations = 0;
+
+        private Search(V query) {
+            this.query = query;
+        }
+
+        private void visit(Node node) {
+            if (node == null) {
+                return;
+            }
+            final double distance = metric.distance(query, values.get(node.vantagePoint),
+                    Math.max(bestDistance, node.radius + bestDistance / slack));
+            evaluations++;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = node.vantagePoint;
+            }
+            if (distance < node.radius) {
+                visitInside(node, distance);
+                visitOutside(node, distance);
+            } else {
+                visitOutside(node, distance);
+                visitInside(node, distance);
+            }
+        }
+
+        // values inside are not farther than radius from vantage point
+        private void visitInside(Node node, double distance) {
+            if ((distance - node.radius) * slack < bestDistance) {
+                visit(node.inside);
+            }
+        }
+
+        // values outside are not closer than radius to vantage point
+        private void visitOutside(Node node, double distance) {
+            if ((node.radius - distance) * slack < bestDistance) {
+                visit(node.outside);
+            }
+        }
+    }
+
+    private static class Node {
+        private final int vantagePoint;
+        private final double radius;
+        private final Node inside;
+        private final Node outside;
+
+        private Node(int vantagePoint, double radius, Node inside, Node outside) {
+            this.vantagePoint = vantagePoint;
+            this.radius = radius;
+            this.inside = inside;
+            this.outside = outside;
+        }
+    }
+}
@@ -1,21 +1,35 @@
 package org.ml_methods_group.common.metrics.selectors;
 
 import org.ml_methods_group.common.DistanceFunction;
-import org.ml_methods_group.common.OptionSelector;
+import org.ml_methods_group.common.MultipleOptionSelector;
+import org.ml_methods_group.common.metrics.algorithms.BoundedHeap;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-public class ClosestPairSelector<V> implements OptionSelector<V, V> {
+public class ClosestPairSelector<V> implements MultipleOptionSelector<V, V> {
 
     private final List<V> options;
     private final DistanceFunction<V> metric;
+    private final int parallelism;
 
     public ClosestPairSelector(List<V> options, DistanceFunction<V> metric) {
+        this(options, metric, 1);
+    }
+
+    /**
+     * Options are split between parallelism workers, which share the best distance found so far.
+     * Selected option is the same as in sequential mode: the first one with minimal distance.
+     */
+    public ClosestPairSelector(List<V> options, DistanceFunction<V> metric, int parallelism) {
         this.options = new ArrayList<>(options);
         this.metric = metric;
+        this.parallelism = Math.max(1, parallelism);
     }
 
     @Override
@@ -23,20 +37,75 @@ public class ClosestPairSelector<V> implements OptionSelector<V, V> {
         if (options.isEmpty()) {
             return Optional.empty();
         }
-        V closest = options.get(0);
-        double minDistance = metric.distance(value, closest);
-        for (V option : options.subList(1, options.size())) {
-            final double distance = metric.distance(value, option, minDistance);
+        if (parallelism == 1 || options.size() < 2 * parallelism) {
+            return Optional.of(options.get(selectSequentially(value)));
+        }
+        final AtomicReference<Candidate> best = new AtomicReference<>(Candidate.NONE);
+        final int blockSize = (options.size() - 1) / parallelism + 1;
+        IntStream.range(0, parallelism)
+                .parallel()
+                .forEach(block -> selectInBlock(value, block * blockSize,
+                        Math.min(options.size(), (block + 1) * blockSize), best));
+        final int index = best.get().index;
+        return Optional.of(options.get(index == Candidate.NONE.index ? 0 : index));
+    }
+
+    @Override
+    public List<V> selectOptions(V value, int k) {
+        final BoundedHeap heap = new BoundedHeap(k);
+        for (int i = 0; i < options.size(); i++) {
+            heap.offer(i, metric.distance(value, options.get(i), heap.bound(i)));
+        }
+        return IntStream.of(heap.pollAll())
+                .mapToObj(options::get)
+                .collect(Collectors.toList());
+    }
+
+    private int selectSequentially(V value) {
+        int closest = 0;
+        double minDistance = metric.distance(value, options.get(0));
+        for (int i = 1; i < options.size(); i++) {
+            final double distance = metric.distance(value, options.get(i), minDistance);
             if (distance < minDistance) {
                 minDistance = distance;
-                closest = option;
+                closest = i;
+            }
+        }
+        return closest;
+    }
+
+    private void selectInBlock(V value, int from, int to, AtomicReference<Candidate> best) {
+        for (int i = from; i < to; i++) {
+            final Candidate current = best.get();
+            // options before current best win ties, so equal distance must be distinguishable from the bound
+            final double bound = i < current.index ? Math.nextUp(current.distance) : current.distance;
+            final double distance = metric.distance(value, options.get(i), bound);
+            if (distance >= bound) {
+                continue;
             }
+            final Candidate candidate = new Candidate(distance, i);
+            best.accumulateAndGet(candidate, (old, update) -> update.isBetter(old) ? update : old);
         }
-        return Optional.of(closest);
     }
 
     @Override
     public List<V> getOptions() {
         return Collections.unmodifiableList(options);
     }
+
+    private static class Candidate {
+        private static final Candidate NONE = new Candidate(Double.POSITIVE_INFINITY, Integer.MAX_VALUE);
+
+        private final double distance;
+        private final int index;
+
+        private Candidate(double distance, int index) {
+            this.distance = distance;
+            this.index = index;
+        }
+
+        private boolean isBetter(Candidate other) {
+            return distance < other.distance || distance == other.distance && index < other.index;
+        }
+    }
 }
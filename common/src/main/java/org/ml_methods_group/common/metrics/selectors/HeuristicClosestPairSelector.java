@@ -2,12 +2,14 @@ package org.ml_methods_group.common.metrics.selectors;
 
 import org.ml_methods_group.common.DistanceFunction;
 import org.ml_methods_group.common.FeaturesExtractor;
-import org.ml_methods_group.common.OptionSelector;
+import org.ml_methods_group.common.MultipleOptionSelector;
+import org.ml_methods_group.common.metrics.algorithms.BoundedHeap;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-public class HeuristicClosestPairSelector<V, F, H> implements OptionSelector<V, V> {
+public class HeuristicClosestPairSelector<V, F, H> implements MultipleOptionSelector<V, V> {
 
     private final FeaturesExtractor<V, F> featuresExtractor;
     private final FeaturesExtractor<F, H> heuristicExtractor;
@@ -16,12 +18,27 @@ public class HeuristicClosestPairSelector<V, F, H> implements OptionSelector<V,
     private final List<V> options;
     private final List<F> features;
     private final List<H> heuristics;
+    private final boolean bestFirst;
 
     public HeuristicClosestPairSelector(FeaturesExtractor<V, F> featuresExtractor,
                                         DistanceFunction<F> metric,
                                         FeaturesExtractor<F, H> heuristicExtractor,
                                         DistanceFunction<H> heuristicMetric,
                                         List<V> options) {
+        this(featuresExtractor, metric, heuristicExtractor, heuristicMetric, options, false);
+    }
+
+    /**
+     * In best-first mode heuristic distances are treated as lower bounds of exact ones:
+     * options are checked in order of increasing heuristic distance until it reaches the best exact distance.
+     */
+    public HeuristicClosestPairSelector(FeaturesExtractor<V, F> featuresExtractor,
+                                        DistanceFunction<F> metric,
+                                        FeaturesExtractor<F, H> heuristicExtractor,
+                                        DistanceFunction<H> heuristicMetric,
+                                        List<V> options,
+                                        boolean bestFirst) {
+        this.bestFirst = bestFirst;
         this.featuresExtractor = featuresExtractor;
         this.heuristicExtractor = heuristicExtractor;
         this.metric = metric;
@@ -38,21 +55,77 @@ public class HeuristicClosestPairSelector<V, F, H> implements OptionSelector<V,
 
     @Override
     public Optional<V> selectOption(V value) {
+        final List<V> selected = selectOptions(value, 1);
+        return selected.isEmpty() ? Optional.empty() : Optional.of(selected.get(0));
+    }
+
+    /**
+     * Options, whose heuristic distance is not less than the current k-th best exact distance, are skipped.
+     */
+    @Override
+    public List<V> selectOptions(V value, int k) {
         final F feature = featuresExtractor.process(value);
         final H heuristic = heuristicExtractor.process(feature);
-        int best = -1;
-        double bestDistance = Double.POSITIVE_INFINITY;
-        for (int i = 0; i < options.size(); i++) {
-            if (heuristicMetric.distance(heuristic, heuristics.get(i), bestDistance) >= bestDistance) {
-                continue;
+        final BoundedHeap selected = new BoundedHeap(k);
+        if (bestFirst) {
+            selectBestFirst(feature, heuristic, selected);
+        } else {
+            for (int i = 0; i < options.size(); i++) {
+                final double bound = selected.bound(i);
+                if (heuristicMetric.distance(heuristic, heuristics.get(i), bound) >= bound) {
+                    continue;
+                }
+                selected.offer(i, metric.distance(feature, features.get(i), bound));
+            }
+        }
+        return IntStream.of(selected.pollAll())
+                .mapToObj(options::get)
+                .collect(Collectors.toList());
+    }
+
+    private void selectBestFirst(F feature, H heuristic, BoundedHeap selected) {
+        final int size = options.size();
+        final double[] lowerBounds = new double[size];
+        final int[] heap = new int[size];
+        for (int i = 0; i < size; i++) {
+            lowerBounds[i] = heuristicMetric.distance(heuristic, heuristics.get(i));
+            heap[i] = i;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i, size, lowerBounds);
+        }
+        for (int heapSize = size; heapSize > 0; heapSize--) {
+            final int candidate = heap[0];
+            // remaining candidates with smaller indexes can win ties, so only greater lower bounds stop the search
+            if (lowerBounds[candidate] > selected.bound()) {
+                break;
+            }
+            heap[0] = heap[heapSize - 1];
+            siftDown(heap, 0, heapSize - 1, lowerBounds);
+            final double bound = selected.bound(candidate);
+            if (lowerBounds[candidate] < bound) {
+                selected.offer(candidate, metric.distance(feature, features.get(candidate), bound));
+            }
+        }
+    }
+
+    private static void siftDown(int[] heap, int position, int size, double[] keys) {
+        final int value = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
             }
-            final double distance = metric.distance(feature, features.get(i), bestDistance);
-            if (distance < bestDistance) {
-                bestDistance = distance;
-                best = i;
+            if (keys[heap[child]] >= keys[value]) {
+                break;
             }
+            heap[position] = heap[child];
+            position = child;
         }
-        return best != -1 ? Optional.of(options.get(best)) : Optional.empty();
+        heap[position] = value;
     }
 
     @Override
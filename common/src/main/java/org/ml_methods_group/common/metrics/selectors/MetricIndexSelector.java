@@ -0,0 +1,51 @@
+package org.ml_methods_group.common.metrics.selectors;
+
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.OptionSelector;
+import org.ml_methods_group.common.metrics.index.VantagePointTree;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Same as {@link ClosestPairSelector}, but options are indexed by vantage-point tree once,
+ * so most distances are never evaluated. In case of ties any of the closest options can be selected.
+ * Metric should satisfy triangle inequality, otherwise the closest option can be pruned. Edit script sizes
+ * of {@link org.ml_methods_group.common.metrics.functions.HeuristicChangesBasedDistanceFunction} don't
+ * guarantee it, so selectors over changes stay {@link ClosestPairSelector}, and MetricIndexEvaluation measures
+ * how many distances this selector saves and how often it misses the closest option.
+ */
+public class MetricIndexSelector<V> implements OptionSelector<V, V> {
+
+    private final VantagePointTree<V> tree;
+
+    public MetricIndexSelector(List<V> options, DistanceFunction<V> metric) {
+        this(options, metric, 1);
+    }
+
+    /**
+     * @param slack 1 for exact search, greater values allow options up to slack times farther than the closest one
+     */
+    public MetricIndexSelector(List<V> options, DistanceFunction<V> metric, double slack) {
+        this.tree = new VantagePointTree<>(options, metric, slack);
+    }
+
+    @Override
+    public Optional<V> selectOption(V value) {
+        final int index = tree.nearest(value);
+        return index == -1 ? Optional.empty() : Optional.of(tree.get(index));
+    }
+
+    @Override
+    public List<V> getOptions() {
+        return tree.getValues();
+    }
+
+    public long getQueriesCount() {
+        return tree.getQueriesCount();
+    }
+
+    public long getSavedEvaluationsCount() {
+        return tree.getSavedEvaluationsCount();
+    }
+}
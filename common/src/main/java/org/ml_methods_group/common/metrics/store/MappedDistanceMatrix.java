@@ -0,0 +1,144 @@
+package org.ml_methods_group.common.metrics.store;
+
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.parallel.ParallelContext;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Condensed matrix of pairwise float distances in memory-mapped file, so its size is limited by disk
+ * instead of heap. File is mapped by chunks, because single mapping can't exceed 2GB.
+ * Reads are thread-safe.
+ */
+public class MappedDistanceMatrix implements AutoCloseable {
+    private static final int HEADER_SIZE = 16;
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 28;
+
+    private final RandomAccessFile file;
+    private final int size;
+    private final int chunkSize;
+    private final MappedByteBuffer[] chunks;
+
+    private MappedDistanceMatrix(Path path, int size, int chunkSize, boolean create) throws IOException {
+        this.file = new RandomAccessFile(path.toFile(), create ? "rw" : "r");
+        try {
+            final long count = (long) size * (size - 1) / 2;
+            if (create) {
+                file.setLength(HEADER_SIZE + 4 * count);
+                file.writeInt(size);
+                file.writeInt(chunkSize);
+            }
+            this.size = size;
+            this.chunkSize = chunkSize;
+            final FileChannel.MapMode mode = create ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+            final int chunksCount = (int) ((count + chunkSize - 1) / chunkSize);
+            this.chunks = new MappedByteBuffer[chunksCount];
+            for (int i = 0; i < chunksCount; i++) {
+                final long start = (long) i * chunkSize;
+                final long length = Math.min(chunkSize, count - start);
+                chunks[i] = file.getChannel().map(mode, HEADER_SIZE + 4 * start, 4 * length);
+                chunks[i].order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Evaluates all pairwise distances in parallel and writes them to the file
+     */
+    public static <T> MappedDistanceMatrix build(List<T> values, DistanceFunction<T> metric,
+                                                 Path path) throws IOException {
+        return build(values, metric, path, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Distances not less than upper bound aren't evaluated exactly and are stored as infinity
+     */
+    public static <T> MappedDistanceMatrix build(List<T> values, DistanceFunction<T> metric,
+                                                 Path path, double upperBound) throws IOException {
+        return build(values, metric, path, upperBound, DEFAULT_CHUNK_SIZE);
+    }
+
+    static <T> MappedDistanceMatrix build(List<T> values, DistanceFunction<T> metric,
+                                          Path path, double upperBound, int chunkSize) throws IOException {
+        final MappedDistanceMatrix matrix = new MappedDistanceMatrix(path, values.size(), chunkSize, true);
+        // every row is a separate task, the longest rows go first
+        final List<Integer> rows = new ArrayList<>();
+        for (int i = values.size() - 1; i > 0; i--) {
+            rows.add(i);
+        }
+        try (ParallelContext context = new ParallelContext()) {
+            context.runEach(rows, row -> {
+                final T value = values.get(row);
+                for (int i = 0; i < row; i++) {
+                    final double distance = metric.distance(value, values.get(i), upperBound);
+                    matrix.put(row, i, distance >= upperBound ? Float.POSITIVE_INFINITY : (float) distance);
+                }
+                return row;
+            });
+        }
+        for (MappedByteBuffer chunk : matrix.chunks) {
+            chunk.force();
+        }
+        return matrix;
+    }
+
+    public static MappedDistanceMatrix open(Path path) throws IOException {
+        final int size;
+        final int chunkSize;
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            size = file.readInt();
+            chunkSize = file.readInt();
+        }
+        return new MappedDistanceMatrix(path, size, chunkSize, false);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float get(int first, int second) {
+        if (first == second) {
+            return 0;
+        }
+        final long position = position(first, second);
+        return chunks[(int) (position / chunkSize)].getFloat(4 * (int) (position % chunkSize));
+    }
+
+    private void put(int first, int second, float distance) {
+        final long position = position(first, second);
+        chunks[(int) (position / chunkSize)].putFloat(4 * (int) (position % chunkSize), distance);
+    }
+
+    /**
+     * @param indexer maps value to its index in the list, which the matrix was built for
+     */
+    public <T> DistanceFunction<T> metric(ToIntFunction<T> indexer) {
+        return (first, second) -> get(indexer.applyAsInt(first), indexer.applyAsInt(second));
+    }
+
+    private long position(int first, int second) {
+        if (first < second) {
+            return position(second, first);
+        }
+        if (first >= size || second < 0) {
+            throw new IndexOutOfBoundsException("Wrong pair of indexes: " + first + ", " + second);
+        }
+        return (long) first * (first - 1) / 2 + second;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
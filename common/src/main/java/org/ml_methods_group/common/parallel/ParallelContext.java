@@ -6,6 +6,7 @@ import java.util.concurrent.*;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -13,7 +14,11 @@ public class ParallelContext implements AutoCloseable {
     private final ExecutorService service;
 
     public ParallelContext() {
-        this.service = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelContext(int threadsCount) {
+        this.service = Executors.newFixedThreadPool(threadsCount);
     }
 
     @Override
@@ -78,9 +83,29 @@ public class ParallelContext implements AutoCloseable {
                 .orElseGet(accumulatorFactory);
     }
 
+    /**
+     * Every value is submitted as separate task, so idle threads take next values
+     * and tasks of different duration are balanced.
+     *
+     * @return results in order of values
+     */
+    public <V, R> List<R> runEach(List<V> values, Function<V, R> processor) {
+        final List<Future<R>> results = new ArrayList<>(values.size());
+        for (V value : values) {
+            results.add(service.submit(() -> processor.apply(value)));
+        }
+        return results.stream()
+                .sequential()
+                .map(ParallelContext::getResult)
+                .collect(Collectors.toList());
+    }
+
     private static <V> List<List<V>> splitValues(List<V> values) {
         final List<List<V>> lists = new ArrayList<>();
         final int valuesCount = values.size();
+        if (valuesCount == 0) {
+            return lists;
+        }
         final int blocksCount = Math.min(4, values.size());
         final int blockSize = (valuesCount - 1) / blocksCount + 1; // round up
         for (int blockStart = 0; blockStart < valuesCount; blockStart += blockSize) {
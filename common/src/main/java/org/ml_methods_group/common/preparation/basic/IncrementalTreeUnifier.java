@@ -0,0 +1,156 @@
+package org.ml_methods_group.common.preparation.basic;
+
+import com.github.gumtreediff.tree.ITree;
+import org.ml_methods_group.common.ast.ASTUtils;
+import org.ml_methods_group.common.preparation.basic.TreeUnifier.Entry;
+import org.ml_methods_group.common.preparation.basic.TreeUnifier.Key;
+import org.ml_methods_group.common.serialization.JavaSerializationUtils;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps groups of structurally equal values between calls, so new values are compared only with
+ * known representers instead of regrouping everything. Representer of a group is the value with minimal id
+ * among values, which were added together with the first member of the group. It changes only if
+ * the representer itself is removed by {@link #retain}.
+ */
+public class IncrementalTreeUnifier<V> {
+    private final Function<V, ITree> treeBuilder;
+    private final ToIntFunction<V> idExtractor;
+    private final State<V> state;
+    private boolean isModified;
+
+    /**
+     * @param tag describes tree builder (normalization, version), stored state with another tag is ignored
+     */
+    public IncrementalTreeUnifier(Function<V, ITree> treeBuilder, ToIntFunction<V> idExtractor, String tag) {
+        this(treeBuilder, idExtractor, new State<>(tag));
+        this.isModified = true;
+    }
+
+    private IncrementalTreeUnifier(Function<V, ITree> treeBuilder, ToIntFunction<V> idExtractor, State<V> state) {
+        this.treeBuilder = treeBuilder;
+        this.idExtractor = idExtractor;
+        this.state = state;
+    }
+
+    /**
+     * Values, which were already added, are ignored.
+     *
+     * @return new representers in order of ids
+     */
+    public List<V> add(List<V> values) {
+        final List<V> unknown = values.stream()
+                .filter(value -> !state.knownIds.containsKey(idExtractor.applyAsInt(value)))
+                .collect(Collectors.toList());
+        final List<Entry<V>> entries = TreeUnifier.buildEntries(unknown, treeBuilder);
+        entries.sort(Comparator.comparingInt(entry -> idExtractor.applyAsInt(entry.value)));
+        final List<V> created = new ArrayList<>();
+        for (Entry<V> entry : entries) {
+            final int id = idExtractor.applyAsInt(entry.value);
+            if (state.knownIds.containsKey(id)) {
+                continue;
+            }
+            final List<V> bucket = state.representers.computeIfAbsent(entry.key, x -> new ArrayList<>(1));
+            final V representer = findEqual(bucket, entry.tree);
+            if (representer == null) {
+                bucket.add(entry.value);
+                created.add(entry.value);
+                state.knownIds.put(id, id);
+            } else {
+                state.knownIds.put(id, idExtractor.applyAsInt(representer));
+            }
+            isModified = true;
+        }
+        return created;
+    }
+
+    private V findEqual(List<V> bucket, ITree tree) {
+        for (V representer : bucket) {
+            if (ASTUtils.deepEquals(treeBuilder.apply(representer), tree)) {
+                return representer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Forgets values, which aren't in the list. Values, which lost their representer, are forgotten too,
+     * so they are grouped again by the next call of {@link #add}.
+     */
+    public void retain(List<V> values) {
+        final Set<Integer> ids = values.stream()
+                .map(idExtractor::applyAsInt)
+                .collect(Collectors.toSet());
+        final boolean removed = state.knownIds.entrySet()
+                .removeIf(entry -> !ids.contains(entry.getKey()) || !ids.contains(entry.getValue()));
+        if (!removed) {
+            return;
+        }
+        for (List<V> bucket : state.representers.values()) {
+            bucket.removeIf(representer -> !ids.contains(idExtractor.applyAsInt(representer)));
+        }
+        state.representers.values().removeIf(List::isEmpty);
+        isModified = true;
+    }
+
+    public List<V> getRepresenters() {
+        final List<V> result = new ArrayList<>();
+        state.representers.values().forEach(result::addAll);
+        return result;
+    }
+
+    public int getValuesCount() {
+        return state.knownIds.size();
+    }
+
+    /**
+     * @return true if groups were changed since creation or loading, so state should be stored again
+     */
+    public boolean isModified() {
+        return isModified;
+    }
+
+    public void store(Path path) throws IOException {
+        JavaSerializationUtils.storeObject(state, path);
+        isModified = false;
+    }
+
+    /**
+     * @return stored state, or empty unifier, if there is no state with the same tag
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> IncrementalTreeUnifier<V> load(Path path, Function<V, ITree> treeBuilder,
+                                                     ToIntFunction<V> idExtractor, String tag) throws IOException {
+        if (!path.toFile().exists()) {
+            return new IncrementalTreeUnifier<>(treeBuilder, idExtractor, tag);
+        }
+        final State<V> state;
+        try {
+            state = JavaSerializationUtils.loadObject(State.class, path);
+        } catch (InvalidClassException e) {
+            return new IncrementalTreeUnifier<>(treeBuilder, idExtractor, tag);
+        }
+        return state.tag.equals(tag)
+                ? new IncrementalTreeUnifier<>(treeBuilder, idExtractor, state)
+                : new IncrementalTreeUnifier<>(treeBuilder, idExtractor, tag);
+    }
+
+    private static class State<V> implements Serializable {
+        private final String tag;
+        private final Map<Key, List<V>> representers = new LinkedHashMap<>();
+        // id of value -> id of its representer
+        private final Map<Integer, Integer> knownIds = new HashMap<>();
+
+        private State(String tag) {
+            this.tag = tag;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.ml_methods_group.common.preparation.basic;
+
+import com.github.gumtreediff.tree.ITree;
+import org.ml_methods_group.common.ast.ASTUtils;
+import org.ml_methods_group.common.parallel.ParallelContext;
+import org.ml_methods_group.common.parallel.ParallelUtils;
+import org.ml_methods_group.common.preparation.RepresenterPicker;
+import org.ml_methods_group.common.preparation.Unifier;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Unifies values with structurally equal trees. Every tree is built once (in parallel) and grouped by
+ * {@link ASTUtils#structuralHash}; deep comparison is needed only for values with equal hashes.
+ */
+public class TreeUnifier<V> implements Unifier<V> {
+    private final Function<V, ITree> treeBuilder;
+    private final RepresenterPicker<V> picker;
+    private volatile int valuesCount;
+    private volatile int groupsCount;
+    private volatile int collisionsCount;
+
+    public TreeUnifier(Function<V, ITree> treeBuilder, RepresenterPicker<V> picker) {
+        this.treeBuilder = treeBuilder;
+        this.picker = picker;
+    }
+
+    @Override
+    public List<V> unify(List<V> values) {
+        final List<Entry<V>> entries = buildEntries(values, treeBuilder);
+        final Map<Key, List<List<Entry<V>>>> buckets = new LinkedHashMap<>();
+        int collisions = 0;
+        for (Entry<V> entry : entries) {
+            final List<List<Entry<V>>> bucket = buckets.computeIfAbsent(entry.key, x -> new ArrayList<>(1));
+            final List<Entry<V>> group = findGroup(bucket, entry);
+            if (group != null) {
+                group.add(entry);
+                continue;
+            }
+            if (!bucket.isEmpty()) {
+                collisions++;
+            }
+            final List<Entry<V>> created = new ArrayList<>();
+            created.add(entry);
+            bucket.add(created);
+        }
+        final List<V> result = new ArrayList<>();
+        for (List<List<Entry<V>>> bucket : buckets.values()) {
+            for (List<Entry<V>> group : bucket) {
+                final List<V> groupValues = new ArrayList<>(group.size());
+                group.forEach(x -> groupValues.add(x.value));
+                result.add(picker.pick(groupValues));
+            }
+        }
+        valuesCount = values.size();
+        groupsCount = result.size();
+        collisionsCount = collisions;
+        return result;
+    }
+
+    static <V> List<Entry<V>> buildEntries(List<V> values, Function<V, ITree> treeBuilder) {
+        try (ParallelContext context = new ParallelContext()) {
+            return context.runParallelWithConsumer(values,
+                    ParallelUtils::defaultListImplementation,
+                    (value, accumulator) -> accumulator.add(new Entry<>(value, treeBuilder.apply(value))),
+                    ParallelUtils::combineLists);
+        }
+    }
+
+    private List<Entry<V>> findGroup(List<List<Entry<V>>> bucket, Entry<V> entry) {
+        for (List<Entry<V>> group : bucket) {
+            if (ASTUtils.deepEquals(group.get(0).tree, entry.tree)) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return number of values passed to the last unify call
+     */
+    public int getValuesCount() {
+        return valuesCount;
+    }
+
+    /**
+     * @return number of representers returned by the last unify call
+     */
+    public int getGroupsCount() {
+        return groupsCount;
+    }
+
+    /**
+     * @return number of structurally different trees with equal hashes in the last unify call
+     */
+    public int getCollisionsCount() {
+        return collisionsCount;
+    }
+
+    public double getDeduplicationRatio() {
+        return valuesCount == 0 ? 0 : 1 - (double) groupsCount / valuesCount;
+    }
+
+    static class Entry<V> {
+        final V value;
+        final ITree tree;
+        final Key key;
+
+        private Entry(V value, ITree tree) {
+            this.value = value;
+            this.tree = tree;
+            this.key = new Key(ASTUtils.structuralHash(tree));
+        }
+    }
+
+    static class Key implements Serializable {
+        private final long first;
+        private final long second;
+
+        private Key(long[] hash) {
+            this.first = hash[0];
+            this.second = hash[1];
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == null || other.getClass() != Key.class) {
+                return false;
+            }
+            final Key key = (Key) other;
+            return first == key.first && second == key.second;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(first);
+        }
+    }
+}
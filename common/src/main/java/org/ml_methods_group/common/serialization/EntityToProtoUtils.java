@@ -153,6 +153,13 @@ public class EntityToProtoUtils {
                 .build();
     }
 
+    public static ProtoChangesAssignment transformAssignment(Changes changes, int cluster) {
+        return ProtoChangesAssignment.newBuilder()
+                .setChanges(transform(changes))
+                .setCluster(cluster)
+                .build();
+    }
+
     public static ProtoChangesClusters transformChangesClusters(Clusters<Changes> clusters) {
         final List<ProtoChangesCluster> proto = clusters.getClusters()
                 .stream()
@@ -11,8 +11,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class ProtobufSerializationUtils {
 
@@ -50,6 +52,50 @@ public class ProtobufSerializationUtils {
         }
     }
 
+    /**
+     * Appends assignments of changes to clusters to the log, so stored clusters aren't rewritten
+     * after every update. Index equal to the number of clusters means new cluster.
+     */
+    public static void appendChangesAssignments(List<Changes> changes, int[] clusters, Path log) throws IOException {
+        final Path directory = log.getParent();
+        if (directory != null && !Files.exists(directory) && !directory.toFile().mkdirs()) {
+            throw new IOException("Failed to create parent directories: " + directory.toString());
+        }
+        try (FileOutputStream outputStream = new FileOutputStream(log.toFile(), true)) {
+            for (int i = 0; i < changes.size(); i++) {
+                EntityToProtoUtils.transformAssignment(changes.get(i), clusters[i]).writeDelimitedTo(outputStream);
+            }
+        }
+    }
+
+    /**
+     * Loads stored clusters and replays the log of assignments. Missing files are treated as empty.
+     */
+    public static Clusters<Changes> loadChangesClusters(Path path, Path log) throws IOException {
+        final List<List<Changes>> clusters = new ArrayList<>();
+        if (Files.exists(path)) {
+            for (Cluster<Changes> cluster : loadChangesClusters(path).getClusters()) {
+                clusters.add(cluster.elementsCopy());
+            }
+        }
+        if (Files.exists(log)) {
+            try (FileInputStream inputStream = new FileInputStream(log.toFile())) {
+                ProtoChangesAssignment assignment;
+                while ((assignment = ProtoChangesAssignment.parseDelimitedFrom(inputStream)) != null) {
+                    if (assignment.getCluster() == clusters.size()) {
+                        clusters.add(new ArrayList<>());
+                    } else if (assignment.getCluster() > clusters.size()) {
+                        throw new IOException("Wrong cluster index in log: " + assignment.getCluster());
+                    }
+                    clusters.get(assignment.getCluster()).add(ProtoToEntityUtils.transform(assignment.getChanges()));
+                }
+            }
+        }
+        return new Clusters<>(clusters.stream()
+                .map(Cluster::new)
+                .collect(Collectors.toList()));
+    }
+
     public static void storeMarkedClusters(MarkedClusters<Solution, String> clusters, Path path) throws IOException {
         final File directory = path.getParent().toFile();
         if (!directory.exists() && !directory.mkdirs()) {
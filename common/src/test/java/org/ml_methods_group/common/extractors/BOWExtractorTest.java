@@ -0,0 +1,64 @@
+package org.ml_methods_group.common.extractors;
+
+import org.junit.Test;
+import org.ml_methods_group.common.extractors.BOWExtractor.BOWVector;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class BOWExtractorTest {
+
+    private static final HashExtractor<String> WORD_HASH = HashExtractor.<String>builder()
+            .hashComponent(x -> x)
+            .build();
+
+    private static final HashExtractor<String> PREFIX_HASH = HashExtractor.<String>builder()
+            .hashComponent(x -> x.substring(0, 1))
+            .build();
+
+    private static double expected(Map<Long, Integer> indexes, List<HashExtractor<String>> hashers,
+                                   List<String> first, List<String> second) {
+        final int[] a = new int[indexes.size()];
+        final int[] b = new int[indexes.size()];
+        for (HashExtractor<String> hasher : hashers) {
+            first.stream().map(hasher::hash).filter(indexes::containsKey).forEach(x -> a[indexes.get(x)]++);
+            second.stream().map(hasher::hash).filter(indexes::containsKey).forEach(x -> b[indexes.get(x)]++);
+        }
+        int product = 0;
+        int normA = 0;
+        int normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            product += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 1 : (1 - product / (Math.sqrt(normA) * Math.sqrt(normB))) / 2;
+    }
+
+    @Test
+    public void testSameDistances() {
+        final Random random = new Random(239);
+        final String[] words = {"a", "ab", "b", "ba", "bb", "c", "ca", "d"};
+        final List<List<String>> samples = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            final List<String> sample = new ArrayList<>();
+            for (int j = random.nextInt(12); j > 0; j--) {
+                sample.add(words[random.nextInt(words.length)]);
+            }
+            samples.add(sample);
+        }
+        final List<HashExtractor<String>> hashers = Arrays.asList(WORD_HASH, PREFIX_HASH);
+        final List<String> all = new ArrayList<>();
+        samples.forEach(all::addAll);
+        final HashMap<Long, Integer> indexes = BOWExtractor.mostCommon(hashers, all, 7);
+        final BOWExtractor<String> extractor = new BOWExtractor<>(indexes, hashers);
+        for (List<String> first : samples) {
+            final BOWVector a = extractor.process(first);
+            for (List<String> second : samples) {
+                assertEquals(expected(indexes, hashers, first, second),
+                        BOWExtractor.cosineDistance(a, extractor.process(second)), 1e-12);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.ml_methods_group.common.extractors;
+
+import org.junit.Test;
+import org.ml_methods_group.common.SimilarityMetric;
+import org.ml_methods_group.common.ast.NodeType;
+import org.ml_methods_group.common.ast.changes.ChangeType;
+import org.ml_methods_group.common.ast.changes.CodeChange;
+import org.ml_methods_group.common.ast.changes.CodeChange.NodeContext;
+import org.ml_methods_group.common.ast.changes.CodeChange.NodeState;
+import org.ml_methods_group.common.extractors.EncodedCodeChangeExtractor.EncodedCodeChange;
+import org.ml_methods_group.common.metrics.functions.CodeChangeSimilarityMetric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.ml_methods_group.common.ast.NodeType.*;
+
+public class EncodedCodeChangeExtractorTest {
+
+    private static final NodeType[] TYPES = {SIMPLE_NAME, METHOD_INVOCATION, MY_VARIABLE_NAME, NUMBER_LITERAL};
+    private static final String[] LABELS = {"", "a", "b", "println"};
+    private static final String[] JAVA_TYPES = {null, "int", "String"};
+
+    private static NodeState randomState(Random random, String[] labels) {
+        return new NodeState(TYPES[random.nextInt(TYPES.length)],
+                JAVA_TYPES[random.nextInt(JAVA_TYPES.length)],
+                labels[random.nextInt(labels.length)],
+                null,
+                random.nextInt(3));
+    }
+
+    private static NodeContext randomContext(Random random, String[] labels) {
+        return new NodeContext(randomState(random, labels), randomState(random, labels), randomState(random, labels),
+                new NodeState[0], new NodeState[0], new NodeState[0]);
+    }
+
+    private static List<CodeChange> randomChanges(int count, long seed) {
+        return randomChanges(count, seed, LABELS);
+    }
+
+    private static List<CodeChange> randomChanges(int count, long seed, String[] labels) {
+        final Random random = new Random(seed);
+        final List<CodeChange> changes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final ChangeType type = ChangeType.values()[random.nextInt(ChangeType.values().length)];
+            changes.add(new CodeChange(randomContext(random, labels), randomContext(random, labels), type));
+        }
+        return changes;
+    }
+
+    @Test
+    public void testSameScores() {
+        final List<CodeChange> changes = randomChanges(400, 239);
+        final EncodedCodeChangeExtractor extractor = new EncodedCodeChangeExtractor();
+        final List<EncodedCodeChange> encoded = new PointwiseExtractor<>(extractor).process(changes);
+        final SimilarityMetric<CodeChange> expected = new CodeChangeSimilarityMetric();
+        final SimilarityMetric<EncodedCodeChange> actual = extractor.getSimilarityMetric();
+        for (int i = 0; i < changes.size(); i++) {
+            assertEquals(expected.getElementType(changes.get(i)), actual.getElementType(encoded.get(i)));
+            for (int j = 0; j < changes.size(); j++) {
+                assertEquals(expected.measure(changes.get(i), changes.get(j)),
+                        actual.measure(encoded.get(i), encoded.get(j)), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testFrozenDictionary() {
+        final List<CodeChange> train = randomChanges(200, 239);
+        final List<CodeChange> queries = randomChanges(200, 566, new String[]{"a", "println", "x", "y"});
+        final EncodedCodeChangeExtractor extractor = new EncodedCodeChangeExtractor();
+        final List<EncodedCodeChange> encodedTrain = new PointwiseExtractor<>(extractor).process(train);
+        extractor.freeze();
+        final List<EncodedCodeChange> encodedQueries = new PointwiseExtractor<>(extractor).process(queries);
+        final SimilarityMetric<CodeChange> expected = new CodeChangeSimilarityMetric();
+        final SimilarityMetric<EncodedCodeChange> actual = extractor.getSimilarityMetric();
+        for (int i = 0; i < queries.size(); i++) {
+            for (int j = 0; j < train.size(); j++) {
+                assertEquals(expected.measure(queries.get(i), train.get(j)),
+                        actual.measure(encodedQueries.get(i), encodedTrain.get(j)), 0);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDifferentSources() {
+        final CodeChange change = randomChanges(1, 566).get(0);
+        final EncodedCodeChangeExtractor first = new EncodedCodeChangeExtractor();
+        final EncodedCodeChangeExtractor second = new EncodedCodeChangeExtractor();
+        first.getSimilarityMetric().measure(first.process(change), second.process(change));
+    }
+}
@@ -0,0 +1,91 @@
+package org.ml_methods_group.common.extractors;
+
+import org.junit.Test;
+import org.ml_methods_group.common.metrics.functions.JaccardDistanceFunction;
+import org.ml_methods_group.common.metrics.functions.SortedJaccardDistanceFunction;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class HashExtractorTest {
+
+    private static class Token {
+        private final int number;
+        private final String label;
+        private final String[] parts;
+
+        private Token(int number, String label, String[] parts) {
+            this.number = number;
+            this.label = label;
+            this.parts = parts;
+        }
+    }
+
+    private static final HashExtractor<String> PART_HASH = HashExtractor.<String>builder()
+            .append("P")
+            .hashComponent(x -> x)
+            .build();
+
+    private static final HashExtractor<Token> TOKEN_HASH = HashExtractor.<Token>builder()
+            .append("T")
+            .hashComponent(x -> x.number)
+            .hashComponent(x -> x.label, PART_HASH)
+            .hashComponents(x -> x.parts, PART_HASH)
+            .hashComponent(x -> x.label, String::toUpperCase)
+            .build();
+
+    private static List<Token> randomTokens(int count, long seed) {
+        final Random random = new Random(seed);
+        final String[] labels = {"", "a", "b", "ab", "|", "{}"};
+        final List<Token> tokens = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final String[] parts = new String[random.nextInt(3)];
+            for (int j = 0; j < parts.length; j++) {
+                parts[j] = labels[random.nextInt(labels.length)];
+            }
+            final int number = random.nextInt(41) - 20;
+            tokens.add(new Token(i % 7 == 0 ? Integer.MIN_VALUE : number,
+                    labels[random.nextInt(labels.length)], parts));
+        }
+        return tokens;
+    }
+
+    @Test
+    public void testHashesFollowTokens() {
+        final Map<String, Long> ids = new HashMap<>();
+        final Map<Long, String> tokens = new HashMap<>();
+        for (Token token : randomTokens(2000, 239)) {
+            final String text = TOKEN_HASH.process(token);
+            final long id = TOKEN_HASH.hash(token);
+            assertEquals((Long) id, ids.computeIfAbsent(text, x -> id));
+            assertEquals(text, tokens.computeIfAbsent(id, x -> text));
+        }
+    }
+
+    @Test
+    public void testSameJaccardDistances() {
+        final List<Token> tokens = randomTokens(300, 566);
+        final Random random = new Random(30);
+        final List<List<Token>> samples = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final List<Token> sample = new ArrayList<>();
+            for (int j = random.nextInt(10); j > 0; j--) {
+                sample.add(tokens.get(random.nextInt(tokens.size())));
+            }
+            samples.add(sample);
+        }
+        final PointwiseExtractor<Token, String> strings = new PointwiseExtractor<>(TOKEN_HASH);
+        final TokenIdsExtractor<Token> ids = new TokenIdsExtractor<>(TOKEN_HASH, true);
+        final JaccardDistanceFunction<String> expected = new JaccardDistanceFunction<>();
+        final SortedJaccardDistanceFunction actual = new SortedJaccardDistanceFunction();
+        for (List<Token> first : samples) {
+            for (List<Token> second : samples) {
+                final double distance = expected.distance(strings.process(first), strings.process(second));
+                assertEquals(distance, actual.distance(ids.process(first), ids.process(second)), 0);
+                assertEquals(Math.min(distance, 0.5),
+                        actual.distance(ids.process(first), ids.process(second), 0.5), 0);
+            }
+        }
+    }
+}
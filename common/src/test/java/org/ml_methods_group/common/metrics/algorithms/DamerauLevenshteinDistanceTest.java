@@ -0,0 +1,64 @@
+package org.ml_methods_group.common.metrics.algorithms;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DamerauLevenshteinDistanceTest {
+
+    private static int expected(String first, String second) {
+        final int[][] d = new int[first.length() + 1][second.length() + 1];
+        for (int i = 0; i <= first.length(); i++) {
+            for (int j = 0; j <= second.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                    continue;
+                }
+                final int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j], d[i][j - 1]) + 1, d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2)
+                        && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[first.length()][second.length()];
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = random.nextInt(maxLength + 1); i > 0; i--) {
+            builder.append((char) ('a' + random.nextInt(3)));
+        }
+        return builder.toString();
+    }
+
+    private static Character[] toArray(String text) {
+        return text.chars().mapToObj(c -> (char) c).toArray(Character[]::new);
+    }
+
+    @Test
+    public void testSameDistances() {
+        final Random random = new Random(239);
+        for (int test = 0; test < 3000; test++) {
+            final int maxLength = test % 3 == 0 ? 150 : 70;
+            final String first = randomString(random, maxLength);
+            final String second = randomString(random, maxLength);
+            final int distance = expected(first, second);
+            assertEquals(distance, DamerauLevenshteinDistance.problemFor(first, second).solve());
+            assertEquals(distance, DamerauLevenshteinDistance.problemFor(toArray(first), toArray(second),
+                    Character::equals).solve());
+            assertEquals(distance, DamerauLevenshteinDistance.problemFor(toArray(first), toArray(second),
+                    Comparator.naturalOrder()).solve());
+            assertEquals(distance, DamerauLevenshteinDistance.problemFor(toArray(first), toArray(second))
+                    .solve());
+            assertEquals(distance, DamerauLevenshteinDistance.problemFor(first.chars().toArray(),
+                    second.chars().toArray()).solve());
+            assertEquals(distance, DamerauLevenshteinDistance.problemFor(first.chars().asLongStream().toArray(),
+                    second.chars().asLongStream().toArray()).solve());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.ml_methods_group.common.metrics.algorithms;
+
+import org.junit.Test;
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NearestNeighboursTest {
+
+    private static final DistanceFunction<double[]> METRIC = (a, b) -> Math.hypot(a[0] - b[0], a[1] - b[1]);
+
+    @Test
+    public void testSameAsFullScan() {
+        final Random random = new Random(239);
+        final List<double[]> targets = IntStream.range(0, 3000)
+                .mapToObj(i -> new double[]{random.nextDouble(), random.nextDouble()})
+                .collect(Collectors.toList());
+        for (int k : new int[]{1, 5, 20}) {
+            for (int query = 0; query < 20; query++) {
+                final double[] value = {random.nextDouble(), random.nextDouble()};
+                final int[] expected = IntStream.range(0, targets.size())
+                        .boxed()
+                        .sorted(Comparator.comparingDouble(i -> METRIC.distance(value, targets.get(i))))
+                        .limit(k)
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                final NearestNeighbours neighbours = NearestNeighbours.search(value, targets, k, METRIC);
+                final int[] indexes = IntStream.range(0, neighbours.size())
+                        .map(neighbours::getIndex)
+                        .toArray();
+                assertArrayEquals(expected, indexes);
+                for (int i = 0; i < neighbours.size(); i++) {
+                    assertEquals(METRIC.distance(value, targets.get(indexes[i])), neighbours.getDistance(i), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPruning() {
+        final Random random = new Random(239);
+        final List<double[]> targets = IntStream.range(0, 3000)
+                .mapToObj(i -> new double[]{random.nextDouble(), random.nextDouble()})
+                .collect(Collectors.toList());
+        final AtomicInteger exactEvaluations = new AtomicInteger();
+        final DistanceFunction<double[]> metric = new DistanceFunction<>() {
+            @Override
+            public double distance(double[] first, double[] second) {
+                return METRIC.distance(first, second);
+            }
+
+            @Override
+            public double distance(double[] first, double[] second, double upperBound) {
+                if (upperBound == Double.POSITIVE_INFINITY) {
+                    exactEvaluations.incrementAndGet();
+                }
+                return Math.min(distance(first, second), upperBound);
+            }
+        };
+        assertEquals(3, NearestNeighbours.search(new double[]{0.5, 0.5}, targets, 3, metric).size());
+        // every block evaluates at most k distances without bound
+        assertTrue(exactEvaluations.get() <= 3 * (targets.size() + 255) / 256);
+        assertEquals(2, NearestNeighbours.search(new double[]{0, 0}, targets.subList(0, 2), 3, metric).size());
+    }
+
+    @Test
+    public void testTiesDontDependOnScheduling() {
+        final Random random = new Random(239);
+        // few distinct distances, so there are many ties at the k-th place
+        final List<double[]> targets = IntStream.range(0, 3000)
+                .mapToObj(i -> new double[]{random.nextInt(5), random.nextInt(5)})
+                .collect(Collectors.toList());
+        final double[] value = {2, 2};
+        final int[] expected = IntStream.range(0, targets.size())
+                .boxed()
+                .sorted(Comparator.<Integer>comparingDouble(i -> METRIC.distance(value, targets.get(i)))
+                        .thenComparingInt(Integer::intValue))
+                .limit(50)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (int attempt = 0; attempt < 20; attempt++) {
+            final NearestNeighbours neighbours = NearestNeighbours.search(value, targets, 50, METRIC);
+            assertArrayEquals(expected, IntStream.range(0, neighbours.size())
+                    .map(neighbours::getIndex)
+                    .toArray());
+        }
+    }
+}
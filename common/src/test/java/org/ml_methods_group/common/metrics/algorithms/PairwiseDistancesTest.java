@@ -0,0 +1,85 @@
+package org.ml_methods_group.common.metrics.algorithms;
+
+import org.junit.Test;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.parallel.ParallelContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PairwiseDistancesTest {
+
+    private static final DistanceFunction<double[]> METRIC = (a, b) -> Math.hypot(a[0] - b[0], a[1] - b[1]);
+
+    private static List<String> pairs(PairwiseDistances distances) {
+        final List<String> result = new ArrayList<>();
+        for (int i = 0; i < distances.size(); i++) {
+            result.add(distances.getFirst(i) + " " + distances.getSecond(i) + " " + distances.getDistance(i));
+        }
+        return result;
+    }
+
+    @Test
+    public void testSamePairsAsFullScan() {
+        final Random random = new Random(239);
+        final List<double[]> values = IntStream.range(0, 203)
+                .mapToObj(i -> new double[]{random.nextDouble(), random.nextDouble()})
+                .collect(Collectors.toList());
+        final List<String> expected = new ArrayList<>();
+        for (int j = 0; j < values.size(); j++) {
+            for (int i = 0; i < j; i++) {
+                final double distance = METRIC.distance(values.get(j), values.get(i));
+                if (distance < 0.2) {
+                    expected.add(i + " " + j + " " + distance);
+                }
+            }
+        }
+        try (ParallelContext context = new ParallelContext()) {
+            final List<String> actual = pairs(PairwiseDistances.closePairs(values, METRIC, 0.2, 16, context));
+            assertEquals(expected.stream().sorted().collect(Collectors.toList()),
+                    actual.stream().sorted().collect(Collectors.toList()));
+            for (int i = 0; i < 5; i++) {
+                assertEquals(actual, pairs(PairwiseDistances.closePairs(values, METRIC, 0.2, 16, context)));
+            }
+        }
+    }
+
+    @Test
+    public void testTilesSpreadOverThreads() {
+        final Random random = new Random(239);
+        final List<double[]> values = IntStream.range(0, 200)
+                .mapToObj(i -> new double[]{random.nextDouble(), random.nextDouble()})
+                .collect(Collectors.toList());
+        final int expectedThreads = 6;
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final CountDownLatch latch = new CountDownLatch(expectedThreads);
+        // first tile of every thread waits for other threads, so it passes only if tiles run on many threads
+        final DistanceFunction<double[]> metric = (a, b) -> {
+            if (threads.add(Thread.currentThread())) {
+                latch.countDown();
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return METRIC.distance(a, b);
+        };
+        try (ParallelContext context = new ParallelContext(8)) {
+            final List<String> actual = pairs(PairwiseDistances.closePairs(values, metric, 0.2, 16, context));
+            assertEquals(pairs(PairwiseDistances.closePairs(values, METRIC, 0.2, 16, context)), actual);
+        }
+        assertEquals(0, latch.getCount());
+        assertTrue(threads.size() >= expectedThreads);
+    }
+}
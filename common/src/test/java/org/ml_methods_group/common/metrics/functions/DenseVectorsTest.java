@@ -0,0 +1,47 @@
+package org.ml_methods_group.common.metrics.functions;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DenseVectorsTest {
+
+    private static double expectedSimilarity(double[] a, double[] b) {
+        double sum = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return sum == 0 ? 0 : (1 + sum / Math.sqrt(normA * normB)) / 2;
+    }
+
+    @Test
+    public void testSameDistances() {
+        final Random random = new Random(239);
+        for (int dimension = 0; dimension < 11; dimension++) {
+            final List<double[]> rows = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                rows.add(random.doubles(dimension).map(x -> x - 0.5).toArray());
+            }
+            final double[] doubles = DenseVectors.of(rows, false).cosineDistances(rows.get(0));
+            final double[] floats = DenseVectors.of(rows, true).cosineDistances(rows.get(0));
+            for (int i = 0; i < rows.size(); i++) {
+                final double expected = expectedSimilarity(rows.get(0), rows.get(i));
+                assertEquals(expected, FunctionsUtils.cosineSimilarity(rows.get(0), rows.get(i)), 1e-12);
+                assertEquals(1 - expected, doubles[i], 1e-12);
+                assertEquals(1 - expected, floats[i], 1e-6);
+            }
+            final double[] sum = FunctionsUtils.sum(rows.get(1), rows.get(2));
+            for (int i = 0; i < dimension; i++) {
+                assertEquals(rows.get(1)[i] + rows.get(2)[i], sum[i], 0);
+            }
+        }
+    }
+}
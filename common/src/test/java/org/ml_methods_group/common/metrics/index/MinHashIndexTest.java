@@ -0,0 +1,53 @@
+package org.ml_methods_group.common.metrics.index;
+
+import org.junit.Test;
+import org.ml_methods_group.common.metrics.functions.SortedJaccardDistanceFunction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MinHashIndexTest {
+
+    private static List<long[]> randomValues(Random random) {
+        final List<long[]> values = new ArrayList<>();
+        for (int group = 0; group < 30; group++) {
+            final long[] base = random.longs(20, 0, 1000).toArray();
+            for (int i = 0; i < 5; i++) {
+                final long[] value = base.clone();
+                value[random.nextInt(value.length)] = random.nextInt(1000);
+                Arrays.sort(value);
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void testRecall() {
+        final List<long[]> values = randomValues(new Random(239));
+        final MinHashIndex<long[]> index = new MinHashIndex<>(x -> x, 20, 3);
+        final double recall = CandidatesIndex.pairsRecall(index, values, new SortedJaccardDistanceFunction(), 0.3);
+        assertTrue(recall > 0.95);
+        final long pairsCount = (long) values.size() * (values.size() - 1) / 2;
+        final long[] pairs = index.getCandidatePairs();
+        assertTrue(pairs.length < pairsCount / 10);
+        for (int i = 1; i < pairs.length; i++) {
+            assertTrue(pairs[i - 1] < pairs[i]);
+        }
+        for (int i = 0; i < values.size(); i++) {
+            assertTrue(Arrays.binarySearch(index.getCandidates(values.get(i)), i) >= 0);
+        }
+    }
+
+    @Test
+    public void testSameCandidatesForEqualMultisets() {
+        final MinHashIndex<long[]> index = new MinHashIndex<>(x -> x, 4, 2);
+        index.build(Arrays.asList(new long[]{1, 1, 2}, new long[]{3, 4, 4}, new long[]{1, 1, 2}));
+        assertArrayEquals(new int[]{0, 2}, index.getCandidates(new long[]{1, 1, 2}));
+    }
+}
@@ -0,0 +1,63 @@
+package org.ml_methods_group.common.metrics.index;
+
+import org.junit.Test;
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NearestNeighboursGraphTest {
+
+    private static final DistanceFunction<double[]> METRIC = (a, b) -> Math.hypot(a[0] - b[0], a[1] - b[1]);
+
+    @Test
+    public void testRecall() {
+        final Random random = new Random(239);
+        final List<double[]> values = IntStream.range(0, 1000)
+                .mapToObj(i -> new double[]{random.nextDouble(), random.nextDouble()})
+                .collect(Collectors.toList());
+        final int k = 10;
+        final NearestNeighboursGraph graph = NearestNeighboursGraph.build(values, METRIC, k, 239);
+        assertEquals(values.size(), graph.size());
+        assertEquals(k, graph.getNeighboursCount());
+        int found = 0;
+        for (int i = 0; i < values.size(); i++) {
+            final double[] value = values.get(i);
+            final double kth = values.stream()
+                    .filter(x -> x != value)
+                    .map(x -> METRIC.distance(value, x))
+                    .sorted(Comparator.naturalOrder())
+                    .skip(k - 1)
+                    .findFirst()
+                    .orElseThrow();
+            for (int j = 0; j < k; j++) {
+                assertTrue(graph.getNeighbour(i, j) != i);
+                assertEquals(METRIC.distance(value, values.get(graph.getNeighbour(i, j))), graph.getDistance(i, j), 0);
+                if (j > 0) {
+                    assertTrue(graph.getDistance(i, j - 1) <= graph.getDistance(i, j));
+                }
+                if (graph.getDistance(i, j) <= kth) {
+                    found++;
+                }
+            }
+        }
+        assertTrue(found >= 0.95 * k * values.size());
+    }
+
+    @Test
+    public void testSmallInputs() {
+        assertEquals(0, NearestNeighboursGraph.build(List.of(), METRIC, 5, 239).size());
+        final NearestNeighboursGraph graph = NearestNeighboursGraph.build(
+                List.of(new double[]{0, 0}, new double[]{1, 0}, new double[]{3, 0}), METRIC, 5, 239);
+        assertEquals(2, graph.getNeighboursCount());
+        assertEquals(1, graph.getNeighbour(0, 0));
+        assertEquals(2, graph.getNeighbour(0, 1));
+        assertEquals(3, graph.getDistance(0, 1), 0);
+    }
+}
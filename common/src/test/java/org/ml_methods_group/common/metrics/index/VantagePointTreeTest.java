@@ -0,0 +1,49 @@
+package org.ml_methods_group.common.metrics.index;
+
+import org.junit.Test;
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VantagePointTreeTest {
+
+    private static final DistanceFunction<double[]> METRIC = (a, b) -> Math.hypot(a[0] - b[0], a[1] - b[1]);
+
+    private static double closest(List<double[]> values, double[] query) {
+        return values.stream()
+                .mapToDouble(x -> METRIC.distance(query, x))
+                .min()
+                .orElse(Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void testNearest() {
+        final Random random = new Random(239);
+        final List<double[]> values = IntStream.range(0, 2000)
+                .mapToObj(i -> new double[]{random.nextInt(100), random.nextInt(100)})
+                .collect(Collectors.toList());
+        final VantagePointTree<double[]> exact = new VantagePointTree<>(values, METRIC);
+        final VantagePointTree<double[]> approximate = new VantagePointTree<>(values, METRIC, 1.5);
+        for (int i = 0; i < 200; i++) {
+            final double[] query = {random.nextDouble() * 100, random.nextDouble() * 100};
+            final double expected = closest(values, query);
+            assertEquals(expected, METRIC.distance(query, values.get(exact.nearest(query))), 0);
+            assertTrue(METRIC.distance(query, values.get(approximate.nearest(query))) <= expected * 1.5);
+        }
+        assertEquals(200, exact.getQueriesCount());
+        assertTrue(exact.getSavedEvaluationsCount() > 200 * 1000);
+        assertTrue(approximate.getEvaluationsCount() <= exact.getEvaluationsCount());
+    }
+
+    @Test
+    public void testEmpty() {
+        final VantagePointTree<double[]> tree = new VantagePointTree<>(List.of(), METRIC);
+        assertEquals(-1, tree.nearest(new double[]{0, 0}));
+    }
+}
@@ -0,0 +1,31 @@
+package org.ml_methods_group.common.metrics.selectors;
+
+import org.junit.Test;
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertSame;
+
+public class ClosestPairSelectorTest {
+
+    @Test
+    public void testSameOptionAsSequential() {
+        final Random random = new Random(239);
+        final DistanceFunction<int[]> metric = (a, b) -> Math.abs(a[0] - b[0]) / 3;
+        for (int test = 0; test < 50; test++) {
+            final List<int[]> options = IntStream.range(0, 1 + random.nextInt(300))
+                    .mapToObj(i -> new int[]{random.nextInt(100)})
+                    .collect(Collectors.toList());
+            final ClosestPairSelector<int[]> sequential = new ClosestPairSelector<>(options, metric);
+            final ClosestPairSelector<int[]> parallel = new ClosestPairSelector<>(options, metric, 4);
+            for (int i = 0; i < 20; i++) {
+                final int[] value = {random.nextInt(100)};
+                assertSame(sequential.selectOption(value).get(), parallel.selectOption(value).get());
+            }
+        }
+    }
+}
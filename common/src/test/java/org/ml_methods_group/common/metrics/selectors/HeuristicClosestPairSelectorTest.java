@@ -0,0 +1,64 @@
+package org.ml_methods_group.common.metrics.selectors;
+
+import org.junit.Test;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.MultipleOptionSelector;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class HeuristicClosestPairSelectorTest {
+
+    private static final DistanceFunction<int[]> METRIC = (a, b) -> Math.abs(a[0] - b[0]) + Math.abs(a[1] - b[1]);
+    private static final DistanceFunction<Integer> LOWER_BOUND = (a, b) -> Math.abs(a - b);
+
+    @Test
+    public void testBestFirstFindsClosest() {
+        final Random random = new Random(239);
+        final List<int[]> options = IntStream.range(0, 500)
+                .mapToObj(i -> new int[]{random.nextInt(100), random.nextInt(100)})
+                .collect(Collectors.toList());
+        final HeuristicClosestPairSelector<int[], int[], Integer> selector = new HeuristicClosestPairSelector<>(
+                x -> x, METRIC, x -> x[0], LOWER_BOUND, options, true);
+        for (int i = 0; i < 100; i++) {
+            final int[] value = {random.nextInt(100), random.nextInt(100)};
+            final double expected = options.stream()
+                    .mapToDouble(x -> METRIC.distance(value, x))
+                    .min()
+                    .getAsDouble();
+            assertEquals(expected, METRIC.distance(value, selector.selectOption(value).get()), 0);
+        }
+    }
+
+    @Test
+    public void testTopKDistances() {
+        final Random random = new Random(566);
+        final List<int[]> options = IntStream.range(0, 300)
+                .mapToObj(i -> new int[]{random.nextInt(50), random.nextInt(50)})
+                .collect(Collectors.toList());
+        final List<MultipleOptionSelector<int[], int[]>> selectors = Arrays.asList(
+                new ClosestPairSelector<>(options, METRIC),
+                new HeuristicClosestPairSelector<>(x -> x, METRIC, x -> x[0], LOWER_BOUND, options, false),
+                new HeuristicClosestPairSelector<>(x -> x, METRIC, x -> x[0], LOWER_BOUND, options, true));
+        for (int i = 0; i < 50; i++) {
+            final int[] value = {random.nextInt(50), random.nextInt(50)};
+            final double[] expected = options.stream()
+                    .mapToDouble(x -> METRIC.distance(value, x))
+                    .sorted()
+                    .limit(7)
+                    .toArray();
+            for (MultipleOptionSelector<int[], int[]> selector : selectors) {
+                final double[] actual = selector.selectOptions(value, 7).stream()
+                        .mapToDouble(x -> METRIC.distance(value, x))
+                        .toArray();
+                assertArrayEquals(expected, actual, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.ml_methods_group.common.metrics.store;
+
+import org.junit.Test;
+import org.ml_methods_group.common.DistanceFunction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedDistanceMatrixTest {
+
+    private static final DistanceFunction<double[]> METRIC = (a, b) -> Math.hypot(a[0] - b[0], a[1] - b[1]);
+
+    @Test
+    public void testStoredDistances() throws IOException {
+        final Random random = new Random(239);
+        final List<double[]> values = IntStream.range(0, 50)
+                .mapToObj(i -> new double[]{random.nextDouble(), random.nextDouble()})
+                .collect(Collectors.toList());
+        final Path path = Files.createTempFile("distances", ".bin");
+        try {
+            try (MappedDistanceMatrix matrix = MappedDistanceMatrix.build(values, METRIC, path,
+                    Double.POSITIVE_INFINITY, 7)) {
+                assertEquals(50, matrix.size());
+                assertEquals(METRIC.distance(values.get(3), values.get(17)), matrix.get(17, 3), 1e-6);
+            }
+            try (MappedDistanceMatrix matrix = MappedDistanceMatrix.open(path)) {
+                final DistanceFunction<double[]> stored = matrix.metric(values::indexOf);
+                for (double[] first : values) {
+                    for (double[] second : values) {
+                        assertEquals(METRIC.distance(first, second), stored.distance(first, second), 1e-6);
+                    }
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testBoundedDistances() throws IOException {
+        final Random random = new Random(239);
+        final List<double[]> values = IntStream.range(0, 50)
+                .mapToObj(i -> new double[]{random.nextDouble(), random.nextDouble()})
+                .collect(Collectors.toList());
+        final Path path = Files.createTempFile("distances", ".bin");
+        try (MappedDistanceMatrix matrix = MappedDistanceMatrix.build(values, METRIC, path, 0.5, 7)) {
+            for (int i = 0; i < values.size(); i++) {
+                for (int j = 0; j < i; j++) {
+                    final double distance = METRIC.distance(values.get(i), values.get(j));
+                    if (distance < 0.5) {
+                        assertEquals(distance, matrix.get(i, j), 1e-6);
+                    } else {
+                        assertEquals(Float.POSITIVE_INFINITY, matrix.get(i, j), 0);
+                    }
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.ml_methods_group.common.preparation.basic;
+
+import com.github.gumtreediff.tree.ITree;
+import com.github.gumtreediff.tree.TreeContext;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TreeUnifierTest {
+
+    // first label belongs to root, others to its children
+    private static ITree buildTree(String[] labels) {
+        final TreeContext context = new TreeContext();
+        final ITree root = context.createTree(0, labels[0], null);
+        for (int i = 1; i < labels.length; i++) {
+            final ITree child = context.createTree(1, labels[i], null);
+            child.setParentAndUpdateChildren(root);
+        }
+        return root;
+    }
+
+    @Test
+    public void testUnifyDuplicates() {
+        final List<String[]> values = Arrays.asList(
+                new String[]{"a", "x", "y"},
+                new String[]{"b", "x", "y"},
+                new String[]{"a", "x", "y"},
+                new String[]{"a", "y", "x"},
+                new String[]{"a", "xy"},
+                new String[]{"a", "x", "y"},
+                new String[]{"a", "xy"});
+        final TreeUnifier<String[]> unifier = new TreeUnifier<>(TreeUnifierTest::buildTree,
+                new MinValuePicker<>(Comparator.comparingInt(values::indexOf)));
+        final List<Integer> representers = unifier.unify(values).stream()
+                .map(values::indexOf)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(0, 1, 3, 4), representers);
+        assertEquals(7, unifier.getValuesCount());
+        assertEquals(4, unifier.getGroupsCount());
+        assertEquals(0, unifier.getCollisionsCount());
+        assertEquals(3.0 / 7, unifier.getDeduplicationRatio(), 1e-9);
+        assertEquals(Collections.emptyList(), unifier.unify(Collections.emptyList()));
+    }
+
+    @Test
+    public void testIncrementalUnification() throws IOException {
+        // first label is id of value
+        final Function<String[], ITree> treeBuilder = x -> buildTree(Arrays.copyOfRange(x, 1, x.length));
+        final ToIntFunction<String[]> idExtractor = x -> Integer.parseInt(x[0]);
+        final IncrementalTreeUnifier<String[]> unifier = new IncrementalTreeUnifier<>(treeBuilder, idExtractor, "test");
+        final List<String[]> first = Arrays.asList(
+                new String[]{"3", "a", "x"},
+                new String[]{"1", "a", "x"},
+                new String[]{"2", "b"});
+        assertEquals(Arrays.asList(1, 2), ids(unifier.add(first), idExtractor));
+        final Path path = Files.createTempFile("unifier", ".tmp");
+        try {
+            assertTrue(unifier.isModified());
+            unifier.store(path);
+            final IncrementalTreeUnifier<String[]> loaded = IncrementalTreeUnifier.load(path, treeBuilder,
+                    idExtractor, "test");
+            loaded.add(first);
+            assertFalse(loaded.isModified());
+            final List<String[]> second = Arrays.asList(
+                    new String[]{"1", "a", "x"},
+                    new String[]{"4", "b"},
+                    new String[]{"5", "c"},
+                    new String[]{"6", "a", "x"});
+            assertEquals(Collections.singletonList(5), ids(loaded.add(second), idExtractor));
+            assertEquals(Arrays.asList(1, 2, 5), ids(loaded.getRepresenters(), idExtractor));
+            assertEquals(6, loaded.getValuesCount());
+            assertEquals(0, IncrementalTreeUnifier.load(path, treeBuilder, idExtractor, "other").getValuesCount());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testRetain() {
+        final Function<String[], ITree> treeBuilder = x -> buildTree(Arrays.copyOfRange(x, 1, x.length));
+        final ToIntFunction<String[]> idExtractor = x -> Integer.parseInt(x[0]);
+        final IncrementalTreeUnifier<String[]> unifier = new IncrementalTreeUnifier<>(treeBuilder, idExtractor,
+                "test");
+        final String[] first = {"1", "a", "x"};
+        final String[] second = {"2", "a", "x"};
+        final String[] third = {"3", "b"};
+        unifier.add(Arrays.asList(first, second, third));
+        assertEquals(Arrays.asList(1, 3), ids(unifier.getRepresenters(), idExtractor));
+        final List<String[]> current = Arrays.asList(second, third);
+        unifier.retain(current);
+        // group of the removed representer is built again
+        assertEquals(Collections.singletonList(3), ids(unifier.getRepresenters(), idExtractor));
+        assertEquals(Collections.singletonList(2), ids(unifier.add(current), idExtractor));
+        assertEquals(Arrays.asList(2, 3), ids(unifier.getRepresenters(), idExtractor));
+        assertEquals(2, unifier.getValuesCount());
+    }
+
+    private static List<Integer> ids(List<String[]> values, ToIntFunction<String[]> idExtractor) {
+        return values.stream()
+                .map(idExtractor::applyAsInt)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
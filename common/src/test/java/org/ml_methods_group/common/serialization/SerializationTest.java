@@ -10,11 +10,15 @@ import org.ml_methods_group.common.ast.changes.CodeChange.NodeState;
 import org.ml_methods_group.common.proto.*;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static java.util.Arrays.deepEquals;
 import static org.junit.Assert.*;
@@ -309,4 +313,32 @@ public class SerializationTest {
         assertEquals(data.get(1), solution2);
         assertEquals(data.get(2), solution3);
     }
+
+    @Test
+    public void testChangesAssignmentsLog() throws Exception {
+        final Solution after = new Solution("some another code", 1, 1, 2, OK);
+        final List<Changes> changes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final Solution before = new Solution("code " + i, 1, 1, 10 + i, FAIL);
+            changes.add(new Changes(before, after, Collections.singletonList(CODE_CHANGE_EXAMPLE)));
+        }
+        final Path storage = Files.createTempFile("clusters", ".tmp");
+        final Path log = Files.createTempFile("clusters", ".log");
+        try {
+            ProtobufSerializationUtils.storeChangesClusters(new Clusters<>(Collections.singletonList(
+                    new Cluster<>(Collections.singletonList(changes.get(0))))), storage);
+            ProtobufSerializationUtils.appendChangesAssignments(changes.subList(1, 3), new int[]{0, 1}, log);
+            ProtobufSerializationUtils.appendChangesAssignments(changes.subList(3, 4), new int[]{1}, log);
+            final List<Cluster<Changes>> clusters = ProtobufSerializationUtils.loadChangesClusters(storage, log)
+                    .getClusters();
+            assertEquals(2, clusters.size());
+            assertEquals(Arrays.asList(changes.get(0).getOrigin(), changes.get(1).getOrigin()),
+                    clusters.get(0).stream().map(Changes::getOrigin).collect(Collectors.toList()));
+            assertEquals(Arrays.asList(changes.get(2).getOrigin(), changes.get(3).getOrigin()),
+                    clusters.get(1).stream().map(Changes::getOrigin).collect(Collectors.toList()));
+        } finally {
+            Files.delete(storage);
+            Files.delete(log);
+        }
+    }
 }
@@ -9,24 +9,25 @@ import com.github.gumtreediff.tree.ITree;
 import org.glassfish.jersey.jackson.JacksonFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.ml_methods_group.classification.classifiers.AdapterClassifier;
+import org.ml_methods_group.classification.classifiers.CompositeClassifier;
 import org.ml_methods_group.classification.classifiers.KNearestNeighbors;
 import org.ml_methods_group.common.Classifier;
 import org.ml_methods_group.common.CommonUtils;
 import org.ml_methods_group.common.Solution;
-import org.ml_methods_group.common.ast.ASTUtils;
+import org.ml_methods_group.common.Wrapper;
 import org.ml_methods_group.common.ast.changes.BasicChangeGenerator;
 import org.ml_methods_group.common.ast.changes.Changes;
 import org.ml_methods_group.common.ast.generation.CachedASTGenerator;
 import org.ml_methods_group.common.ast.normalization.NamesASTNormalizer;
 import org.ml_methods_group.common.extractors.ChangesExtractor;
+import org.ml_methods_group.common.extractors.EncodedCodeChangeExtractor;
+import org.ml_methods_group.common.extractors.EncodedCodeChangeExtractor.EncodedCodeChange;
 import org.ml_methods_group.common.extractors.HeuristicASTRepresentationExtractor;
-import org.ml_methods_group.common.metrics.functions.CodeChangeSimilarityMetric;
+import org.ml_methods_group.common.extractors.PointwiseExtractor;
 import org.ml_methods_group.common.metrics.functions.EditDistance;
 import org.ml_methods_group.common.metrics.functions.FuzzyJaccardDistanceFunction;
 import org.ml_methods_group.common.metrics.selectors.HeuristicClosestPairSelector;
-import org.ml_methods_group.common.preparation.Unifier;
-import org.ml_methods_group.common.preparation.basic.BasicUnifier;
-import org.ml_methods_group.common.preparation.basic.MinValuePicker;
+import org.ml_methods_group.common.preparation.basic.IncrementalTreeUnifier;
 import org.ml_methods_group.common.serialization.ProtobufSerializationUtils;
 import org.ml_methods_group.parsing.CodeValidator;
 import org.ml_methods_group.parsing.JavaCodeValidator;
@@ -51,6 +52,8 @@ import static org.ml_methods_group.common.Solution.Verdict.OK;
 @Singleton
 @javax.ws.rs.Path("/bugs-classification")
 public class HintGenerator {
+    // should be changed with tree normalization, so stored unifier states are invalidated
+    private static final String UNIFIER_TAG = NamesASTNormalizer.class.getName() + "@1";
     private final Map<Integer, Classifier<Solution, String>> classifiers = new HashMap<>();
     private final CodeValidator validator = new JavaCodeValidator();
 
@@ -72,14 +75,16 @@ public class HintGenerator {
                 final var problemId = Integer.parseInt(problem);
                 final var marksPath = path.resolve(problem).resolve("prepared.tmp");
                 final var dataPath = path.resolve(problem).resolve("solutions.tmp");
-                classifiers.put(problemId, loadClassifier(marksPath, dataPath));
+                final var unifierPath = path.resolve(problem).resolve("unifier.tmp");
+                classifiers.put(problemId, loadClassifier(marksPath, dataPath, unifierPath));
             } catch (Exception e) {
                 throw new IOException("Failed to load classifier from " + path.resolve(problem), e);
             }
         }
     }
 
-    private static Classifier<Solution, String> loadClassifier(Path markedDataset, Path dataset) throws IOException {
+    private static Classifier<Solution, String> loadClassifier(Path markedDataset, Path dataset,
+                                                               Path unifierState) throws IOException {
         final var data = ProtobufSerializationUtils.loadDataset(dataset)
                 .filter(CommonUtils.check(Solution::getVerdict, OK::equals));
         final var marks = ProtobufSerializationUtils.loadMarkedChangesClusters(markedDataset);
@@ -87,22 +92,36 @@ public class HintGenerator {
         final var changeGenerator = new BasicChangeGenerator(treeGenerator,
                 Collections.singletonList((Serializable & BiFunction<ITree, ITree, Matcher>) (x, y) ->
                         new CompositeMatchers.ClassicGumtree(x, y, new MappingStore())));
-        final Unifier<Solution> unifier = new BasicUnifier<>(
-                CommonUtils.compose(treeGenerator::buildTree, ITree::getHash)::apply,
-                CommonUtils.checkEquals(treeGenerator::buildTree, ASTUtils::deepEquals),
-                new MinValuePicker<>(Comparator.comparingInt(Solution::getSolutionId)));
+        final IncrementalTreeUnifier<Solution> unifier = IncrementalTreeUnifier.load(unifierState,
+                treeGenerator::buildTree, Solution::getSolutionId, UNIFIER_TAG);
+        unifier.retain(data.getValues());
+        unifier.add(data.getValues());
+        if (unifier.isModified()) {
+            try {
+                unifier.store(unifierState);
+            } catch (IOException e) {
+                // state only saves time on the next start, so read-only data folder is fine
+                System.err.println("Failed to store unifier state " + unifierState + ": " + e.getMessage());
+            }
+        }
         final var heuristicExtractor = new HeuristicASTRepresentationExtractor();
         final var selector = new HeuristicClosestPairSelector<>(
                 treeGenerator::buildTree,
                 new EditDistance(changeGenerator),
                 heuristicExtractor,
                 heuristicExtractor.getDistanceFunction(),
-                unifier.unify(data.getValues()));
+                unifier.getRepresenters(),
+                true);
+        final var encoder = new EncodedCodeChangeExtractor();
         final var metric = CommonUtils.metricFor(
-                new FuzzyJaccardDistanceFunction<>(new CodeChangeSimilarityMetric()),
-                Changes::getChanges);
-        final var changeClassifier = new KNearestNeighbors<Changes, String>(5, metric);
+                new FuzzyJaccardDistanceFunction<>(encoder.getSimilarityMetric()),
+                Wrapper<List<EncodedCodeChange>, Changes>::getFeatures);
+        final var changeClassifier = new CompositeClassifier<>(
+                new PointwiseExtractor<>(encoder).extend(Changes::getChanges),
+                new KNearestNeighbors<Wrapper<List<EncodedCodeChange>, Changes>, String>(5, metric));
         changeClassifier.train(marks);
+        // requests are encoded concurrently and shouldn't grow the dictionary
+        encoder.freeze();
         return new AdapterClassifier<>(changeClassifier, new ChangesExtractor(changeGenerator, selector));
     }
 
@@ -2,11 +2,11 @@ package org.ml_methods_group;
 
 import com.github.gumtreediff.matchers.CompositeMatchers;
 import com.github.gumtreediff.matchers.MappingStore;
-import com.github.gumtreediff.tree.ITree;
 import org.ml_methods_group.clustering.clusterers.CompositeClusterer;
+import org.ml_methods_group.clustering.clusterers.DeduplicatingClusterer;
 import org.ml_methods_group.clustering.clusterers.HAC;
+import org.ml_methods_group.clustering.clusterers.OnlineClusterer;
 import org.ml_methods_group.common.*;
-import org.ml_methods_group.common.ast.ASTUtils;
 import org.ml_methods_group.common.ast.changes.BasicChangeGenerator;
 import org.ml_methods_group.common.ast.changes.ChangeGenerator;
 import org.ml_methods_group.common.ast.changes.Changes;
@@ -21,8 +21,9 @@ import org.ml_methods_group.common.extractors.HashExtractor;
 import org.ml_methods_group.common.metrics.functions.HeuristicChangesBasedDistanceFunction;
 import org.ml_methods_group.common.metrics.selectors.ClosestPairSelector;
 import org.ml_methods_group.common.preparation.Unifier;
-import org.ml_methods_group.common.preparation.basic.BasicUnifier;
 import org.ml_methods_group.common.preparation.basic.MinValuePicker;
+import org.ml_methods_group.common.preparation.basic.TreeUnifier;
+import org.ml_methods_group.common.serialization.JavaSerializationUtils;
 import org.ml_methods_group.common.serialization.ProtobufSerializationUtils;
 import org.ml_methods_group.parsing.JavaCodeValidator;
 import org.ml_methods_group.parsing.ParsingUtils;
@@ -31,19 +32,27 @@ import org.ml_methods_group.testing.extractors.CachedFeaturesExtractor;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 import static org.ml_methods_group.common.Solution.Verdict.FAIL;
 import static org.ml_methods_group.common.Solution.Verdict.OK;
 import static org.ml_methods_group.evaluation.approaches.BOWApproach.*;
 
 public class Application {
+    private static final double DISTANCE_LIMIT = 0.3;
+    private static final double COMPACTION_RATIO = 0.2;
+
     public static void main(String[] args) throws Exception {
         if (args.length == 0) {
-            System.out.println("Command expected: parse, cluster or mark");
+            System.out.println("Command expected: parse, cluster, update or mark");
             return;
         }
         switch (args[0]) {
@@ -66,6 +75,15 @@ public class Application {
                 }
                 cluster(Paths.get(args[1]), Paths.get(args[2]));
                 break;
+            case "update":
+                if (args.length != 3) {
+                    System.out.println("Wrong number of arguments! Expected:" + System.lineSeparator() +
+                            "    Path to file which store parsed solutions" + System.lineSeparator() +
+                            "    Path to file which store clusters" + System.lineSeparator());
+                    return;
+                }
+                update(Paths.get(args[1]), Paths.get(args[2]));
+                break;
             case "mark":
                 if (args.length != 5) {
                     System.out.println("Wrong number of arguments! Expected:" + System.lineSeparator() +
@@ -101,29 +119,127 @@ public class Application {
 
     public static void cluster(Path data, Path storage) throws IOException {
         final Dataset dataset = ProtobufSerializationUtils.loadDataset(data);
+        final var changes = extractChanges(dataset,
+                dataset.getValues(CommonUtils.check(Solution::getVerdict, FAIL::equals)));
+        final HashMap<Long, Integer> vocabulary = getBOWVocabulary(20000, changes);
+        final var bowExtractor = getBOWExtractor(vocabulary);
+        final Clusterer<Changes> clusterer = new DeduplicatingClusterer<>(Changes::getChangesMultiset,
+                new CompositeClusterer<>(bowExtractor, new HAC<>(
+                        DISTANCE_LIMIT,
+                        1,
+                        CommonUtils.metricFor(BOWExtractor::cosineDistance, Wrapper::getFeatures))));
+        final var clusters = clusterer.buildClusters(changes);
+        storeSnapshot(clusters, vocabulary, storage);
+    }
+
+    /**
+     * Assigns incorrect solutions, which aren't clustered yet, to existing clusters. Assignments are appended
+     * to the log next to clusters file. When the log grows big enough, clusters are compacted and rewritten.
+     * Bag-of-words vocabulary is stored with clusters and rebuilt only on compaction.
+     */
+    public static void update(Path data, Path storage) throws IOException {
+        final Dataset dataset = ProtobufSerializationUtils.loadDataset(data);
+        final Path log = getLogPath(storage);
+        final Path vocabularyPath = getVocabularyPath(storage);
+        final SnapshotVocabulary stored = Files.exists(storage) && Files.exists(vocabularyPath)
+                ? JavaSerializationUtils.loadObject(SnapshotVocabulary.class, vocabularyPath)
+                : null;
+        // vocabulary is written after the snapshot, so interrupted run can leave vocabulary of the previous one
+        final boolean compaction = stored == null || stored.snapshotChecksum != checksum(storage)
+                || Files.exists(log) && Files.size(log) > COMPACTION_RATIO * Files.size(storage);
+        final Clusters<Changes> clusters = ProtobufSerializationUtils.loadChangesClusters(storage, log);
+        final Set<Integer> known = clusters.getClusters().stream()
+                .flatMap(Cluster::stream)
+                .map(changes -> changes.getOrigin().getSolutionId())
+                .collect(Collectors.toSet());
+        final var changes = extractChanges(dataset, dataset.getValues(x -> x.getVerdict() == FAIL
+                && !known.contains(x.getSolutionId())));
+        final HashMap<Long, Integer> vocabulary;
+        if (compaction) {
+            final List<Changes> all = new ArrayList<>(changes);
+            clusters.getClusters().forEach(cluster -> all.addAll(cluster.getElements()));
+            vocabulary = getBOWVocabulary(20000, all);
+        } else {
+            vocabulary = stored.vocabulary;
+        }
+        final var wrapper = Wrapper.wrap(getBOWExtractor(vocabulary)::process);
+        final var clusterer = new OnlineClusterer<>(DISTANCE_LIMIT,
+                CommonUtils.metricFor(BOWExtractor::cosineDistance, Wrapper<BOWVector, Changes>::getFeatures),
+                clusters.map(wrapper));
+        final int[] assignments = changes.stream()
+                .map(wrapper)
+                .mapToInt(clusterer::add)
+                .toArray();
+        if (compaction) {
+            clusterer.compact();
+            storeSnapshot(clusterer.getClusters().map(Wrapper::getMeta), vocabulary, storage);
+        } else {
+            ProtobufSerializationUtils.appendChangesAssignments(changes, assignments, log);
+        }
+    }
+
+    // snapshot is written to temporary file and atomically renamed, only then log is deleted,
+    // so interrupted run leaves either the old snapshot with its log or the new one.
+    // Vocabulary is stored last together with checksum of the snapshot, mismatch forces compaction
+    private static void storeSnapshot(Clusters<Changes> clusters, HashMap<Long, Integer> vocabulary,
+                                      Path storage) throws IOException {
+        final Path temporary = storage.resolveSibling(storage.getFileName() + ".tmp");
+        ProtobufSerializationUtils.storeChangesClusters(clusters, temporary);
+        final long snapshotChecksum = checksum(temporary);
+        Files.move(temporary, storage, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // assignments from the log refer to the previous clusters
+        Files.deleteIfExists(getLogPath(storage));
+        final Path vocabularyPath = getVocabularyPath(storage);
+        final Path temporaryVocabulary = vocabularyPath.resolveSibling(vocabularyPath.getFileName() + ".tmp");
+        JavaSerializationUtils.storeObject(new SnapshotVocabulary(snapshotChecksum, vocabulary), temporaryVocabulary);
+        Files.move(temporaryVocabulary, vocabularyPath,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long checksum(Path path) throws IOException {
+        try (CheckedInputStream input = new CheckedInputStream(Files.newInputStream(path), new CRC32())) {
+            final byte[] buffer = new byte[1 << 16];
+            while (input.read(buffer) != -1) {
+                // only checksum is needed
+            }
+            return input.getChecksum().getValue();
+        }
+    }
+
+    private static Path getLogPath(Path storage) {
+        return storage.resolveSibling(storage.getFileName() + ".log");
+    }
+
+    private static Path getVocabularyPath(Path storage) {
+        return storage.resolveSibling(storage.getFileName() + ".vocabulary");
+    }
+
+    private static class SnapshotVocabulary implements Serializable {
+        private final long snapshotChecksum;
+        private final HashMap<Long, Integer> vocabulary;
+
+        private SnapshotVocabulary(long snapshotChecksum, HashMap<Long, Integer> vocabulary) {
+            this.snapshotChecksum = snapshotChecksum;
+            this.vocabulary = vocabulary;
+        }
+    }
+
+    private static List<Changes> extractChanges(Dataset dataset, List<Solution> incorrect) {
         final ASTGenerator astGenerator = new CachedASTGenerator(new NamesASTNormalizer());
         final ChangeGenerator changeGenerator = new BasicChangeGenerator(astGenerator);
-        final Unifier<Solution> unifier = new BasicUnifier<>(
-                CommonUtils.compose(astGenerator::buildTree, ITree::getHash)::apply,
-                CommonUtils.checkEquals(astGenerator::buildTree, ASTUtils::deepEquals),
+        final Unifier<Solution> unifier = new TreeUnifier<>(
+                astGenerator::buildTree,
                 new MinValuePicker<>(Comparator.comparingInt(Solution::getSolutionId)));
         final OptionSelector<Solution, Solution> selector = new ClosestPairSelector<>(
                 unifier.unify(dataset.getValues(CommonUtils.check(Solution::getVerdict, OK::equals))),
-                new HeuristicChangesBasedDistanceFunction(changeGenerator));
+                new HeuristicChangesBasedDistanceFunction(changeGenerator),
+                Runtime.getRuntime().availableProcessors());
         final var extractor = new CachedFeaturesExtractor<>(
                 new ChangesExtractor(changeGenerator, selector),
                 Solution::getSolutionId);
-        final var changes = dataset.getValues(CommonUtils.check(Solution::getVerdict, FAIL::equals))
-                .stream()
+        return incorrect.stream()
                 .map(extractor::process)
                 .collect(Collectors.toList());
-        final var bowExtractor = getBOWExtractor(20000, changes);
-        final Clusterer<Changes> clusterer = new CompositeClusterer<>(bowExtractor, new HAC<>(
-                0.3,
-                1,
-                CommonUtils.metricFor(BOWExtractor::cosineDistance, Wrapper::getFeatures)));
-        final var clusters = clusterer.buildClusters(changes);
-        ProtobufSerializationUtils.storeChangesClusters(clusters, storage);
     }
 
     public static void mark(Path data, Path dst, int numExamples, int numClusters) throws IOException {
@@ -172,13 +288,13 @@ public class Application {
         final ChangeGenerator changeGenerator = new BasicChangeGenerator(
                 astGenerator,
                 Collections.singletonList((x, y) -> new CompositeMatchers.ClassicGumtree(x, y, new MappingStore())));
-        final Unifier<Solution> unifier = new BasicUnifier<>(
-                CommonUtils.compose(astGenerator::buildTree, ITree::getHash)::apply,
-                CommonUtils.checkEquals(astGenerator::buildTree, ASTUtils::deepEquals),
+        final Unifier<Solution> unifier = new TreeUnifier<>(
+                astGenerator::buildTree,
                 new MinValuePicker<>(Comparator.comparingInt(Solution::getSolutionId)));
         final OptionSelector<Solution, Solution> selector = new ClosestPairSelector<>(
                 unifier.unify(dataset.getValues(CommonUtils.check(Solution::getVerdict, OK::equals))),
-                new HeuristicChangesBasedDistanceFunction(changeGenerator));
+                new HeuristicChangesBasedDistanceFunction(changeGenerator),
+                Runtime.getRuntime().availableProcessors());
         final var extractor = new CachedFeaturesExtractor<>(
                 new ChangesExtractor(changeGenerator, selector),
                 Solution::getSolutionId);
@@ -217,6 +333,22 @@ public class Application {
     }
 
     public static FeaturesExtractor<Changes, BOWVector> getBOWExtractor(int wordsLimit, List<Changes> data) {
+        return getBOWExtractor(getBOWVocabulary(wordsLimit, data));
+    }
+
+    public static FeaturesExtractor<Changes, BOWVector> getBOWExtractor(HashMap<Long, Integer> vocabulary) {
+        return new BOWExtractor<>(vocabulary, getBOWHashers()).extend(Changes::getChanges);
+    }
+
+    public static HashMap<Long, Integer> getBOWVocabulary(int wordsLimit, List<Changes> data) {
+        final var codeChanges = data.stream()
+                .map(Changes::getChanges)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        return BOWExtractor.mostCommon(getBOWHashers(), codeChanges, wordsLimit);
+    }
+
+    private static List<HashExtractor<CodeChange>> getBOWHashers() {
         final var weak = HashExtractor.<CodeChange.NodeContext>builder()
                 .append("TOC")
                 .hashComponent(CodeChange.NodeContext::getNode, TYPE_ONLY_NODE_STATE_HASH)
@@ -253,17 +385,8 @@ public class Application {
                 .hashComponent(CodeChange.NodeContext::getParent, LABEL_NODE_STATE_HASH)
                 .hashComponent(CodeChange.NodeContext::getParentOfParent, LABEL_NODE_STATE_HASH)
                 .build();
-        final var codeChanges = data.stream()
-                .map(Changes::getChanges)
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
-        final var extractors = Arrays.asList(getCodeChangeHasher(weak),
+        return Arrays.asList(getCodeChangeHasher(weak),
                 getCodeChangeHasher(javaTypes), getCodeChangeHasher(full), getCodeChangeHasher(extended),
                 getCodeChangeHasher(fullExtended), getCodeChangeHasher(deepExtended));
-        final HashMap<String, Integer> dict = BOWExtractor.mostCommon(
-                extractors,
-                codeChanges,
-                wordsLimit);
-        return new BOWExtractor<>(dict, extractors).extend(Changes::getChanges);
     }
 }
@@ -11,7 +11,6 @@ import org.ml_methods_group.common.ast.generation.CachedASTGenerator;
 import org.ml_methods_group.common.ast.normalization.NamesASTNormalizer;
 import org.ml_methods_group.common.extractors.ChangesExtractor;
 import org.ml_methods_group.common.metrics.functions.HeuristicChangesBasedDistanceFunction;
-import org.ml_methods_group.common.metrics.selectors.ClosestPairSelector;
 import org.ml_methods_group.common.preparation.Unifier;
 import org.ml_methods_group.common.preparation.basic.BasicUnifier;
 import org.ml_methods_group.common.preparation.basic.MinValuePicker;
@@ -20,7 +19,9 @@ import org.ml_methods_group.evaluation.approaches.classification.ClassificationA
 import org.ml_methods_group.evaluation.approaches.classification.ClassificationApproach;
 import org.ml_methods_group.testing.BasicClassificationTester;
 import org.ml_methods_group.testing.ClassificationTestingResult;
-import org.ml_methods_group.testing.selectors.CacheOptionSelector;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector.Assignment;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector.KnownOptions;
 
 
 import java.io.PrintWriter;
@@ -44,6 +45,8 @@ public class ClassificationEvaluation {
     public static ClassificationApproachTemplate[] approaches = {
             new ClassificationApproachTemplate((dataset, extractor) ->
                     JaccardApproach.getDefaultApproach(extractor)),
+            new ClassificationApproachTemplate((dataset, extractor) ->
+                    JaccardApproach.getDefaultApproach(extractor), JaccardApproach::getDefaultCandidatesIndex),
             new ClassificationApproachTemplate((dataset, extractor) ->
                     JaccardApproach.getExtendedApproach(extractor)),
             new ClassificationApproachTemplate((dataset, extractor) ->
@@ -56,9 +59,13 @@ public class ClassificationEvaluation {
                     VectorizationApproach.getDefaultApproach(dataset, extractor)),
             new ClassificationApproachTemplate((dataset, extractor) ->
                     VectorizationApproach.getSumApproach(dataset, extractor)),
+            new ClassificationApproachTemplate((dataset, extractor) ->
+                    VectorizationApproach.getSumApproach(dataset, extractor), false),
+            new ClassificationApproachTemplate((dataset, extractor) ->
+                    VectorizationApproach.getSumApproach(dataset, extractor), true),
     };
 
-    public static String[] classifiers = {"closest-cluster", "k-nearest-3",
+    public static String[] classifiers = {"closest-cluster", "closest-cluster-indexed", "k-nearest-3",
             "k-nearest-5", "k-nearest-10", "k-nearest-15"
     };
 
@@ -85,16 +92,22 @@ public class ClassificationEvaluation {
                 final Path validation = problemData.resolve("validation");
                 final SolutionMarksHolder holder = loadSolutionMarksHolder(problemData.resolve("train_marks.tmp"));
                 final Map<String, double[]> results = new HashMap<>();
+                // assignments stored by NearestOptionsPrecomputation, shared by all steps
+                final Repository<Integer, Assignment> assignments =
+                        PrecomputedOptionSelector.assignmentsRepository(database, problem);
+                final Repository<Long, KnownOptions> knownOptions =
+                        PrecomputedOptionSelector.knownOptionsRepository(database, problem);
                 for (int k = 0; k < 10; k++) {
                     System.out.println("Step " + k);
                     final Dataset train = loadDataset(validation.resolve("step_" + k).resolve("train.tmp"));
                     final Dataset test = loadDataset(validation.resolve("step_" + k).resolve("validate.tmp"));
                     final List<Solution> correct = train.getValues(x -> x.getVerdict() == OK);
-                    final OptionSelector<Solution, Solution> selector = new CacheOptionSelector<>(
-                            new ClosestPairSelector<>(unifier.unify(correct), metric),
-                            database,
+                    final OptionSelector<Solution, Solution> selector = new PrecomputedOptionSelector<>(
+                            unifier.unify(correct),
+                            metric,
                             Solution::getSolutionId,
-                            Solution::getSolutionId);
+                            assignments,
+                            knownOptions);
                     final var generator = new ChangesExtractor(changeGenerator, selector);
                     final var tester = new BasicClassificationTester<>(test.getValues(x -> x.getVerdict() == FAIL),
                             (Solution s, String m) -> holder.getMarks(s).filter(x -> x.contains(m)).isPresent());
@@ -109,6 +122,9 @@ public class ClassificationEvaluation {
                                 for (int numClusters : numClustersToMark) {
                                     final var data = loadMarkedClusters(testDir.resolve(numClusters + "_clusters.tmp"));
                                     for (String classifierName : classifiers) {
+                                        if (!approach.supports(classifierName)) {
+                                            continue;
+                                        }
                                         final var classifier = approach.getClassifier(classifierName);
                                         classifier.train(data);
                                         final var result = getResults(tester.test(classifier));
@@ -12,7 +12,6 @@ import org.ml_methods_group.common.ast.generation.CachedASTGenerator;
 import org.ml_methods_group.common.ast.normalization.NamesASTNormalizer;
 import org.ml_methods_group.common.extractors.ChangesExtractor;
 import org.ml_methods_group.common.metrics.functions.HeuristicChangesBasedDistanceFunction;
-import org.ml_methods_group.common.metrics.selectors.ClosestPairSelector;
 import org.ml_methods_group.common.preparation.Unifier;
 import org.ml_methods_group.common.preparation.basic.BasicUnifier;
 import org.ml_methods_group.common.preparation.basic.MinValuePicker;
@@ -23,11 +22,14 @@ import org.ml_methods_group.evaluation.approaches.clustering.ClusteringApproachT
 import org.ml_methods_group.marking.markers.Marker;
 import org.ml_methods_group.testing.markers.MarksHolderBasedMarker;
 import org.ml_methods_group.testing.markers.SolutionMarksHolderExpander;
-import org.ml_methods_group.testing.selectors.CacheOptionSelector;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector.Assignment;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector.KnownOptions;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.DoubleFunction;
 import java.util.stream.Collectors;
 
 import static org.ml_methods_group.common.Solution.Verdict.FAIL;
@@ -53,6 +55,20 @@ public class ClusterizationEvaluation {
                     BOWApproach.getDefaultApproach(20000, dataset, extractor)),
             new ClusteringApproachTemplate((dataset, extractor) ->
                     VectorizationApproach.getDefaultApproach(dataset, extractor)),
+            new ClusteringApproachTemplate((dataset, extractor) ->
+                    JaccardApproach.getDefaultApproach(extractor), JaccardApproach::getDefaultCandidatesIndex),
+            new ClusteringApproachTemplate((dataset, extractor) ->
+                    JaccardApproach.getDefaultApproach(extractor), 15, 5),
+            new ClusteringApproachTemplate((dataset, extractor) ->
+                    JaccardApproach.getDefaultApproach(extractor), ClusteringApproach.Engine.NN_CHAIN),
+            new ClusteringApproachTemplate((dataset, extractor) ->
+                    JaccardApproach.getDefaultApproach(extractor), ClusteringApproach.Engine.SPARSE),
+            new ClusteringApproachTemplate((dataset, extractor) ->
+                    FuzzyJaccardApproach.getDefaultApproach(extractor), EvaluationInfo.PATH_TO_CACHE),
+            new ClusteringApproachTemplate((dataset, extractor) ->
+                    FuzzyJaccardApproach.getDefaultApproach(extractor),
+                    (dataset, extractor) -> BOWApproach.getDefaultApproach(20000, dataset, extractor),
+                    0.6, 0.3),
     };
 
     public static String[] problems = {
@@ -80,27 +96,34 @@ public class ClusterizationEvaluation {
                 final Path results = EvaluationInfo.PATH_TO_CLUSTERS.resolve(problem);
                 final Path validation = dataset.resolve("validation");
                 final SolutionMarksHolder holder = loadExtendedHolder(dataset);
+                // assignments stored by NearestOptionsPrecomputation, shared by all steps
+                final Repository<Integer, Assignment> assignments =
+                        PrecomputedOptionSelector.assignmentsRepository(database, problem);
+                final Repository<Long, KnownOptions> knownOptions =
+                        PrecomputedOptionSelector.knownOptionsRepository(database, problem);
                 for (int i = 0; i < 10; i++) {
                     System.out.println("    Start step: " + i);
                     final Path dataPath = validation.resolve("step_" + i);
                     final Dataset train = loadDataset(dataPath.resolve("train.tmp"));
                     final List<Solution> correct = train.getValues(x -> x.getVerdict() == OK);
                     final List<Solution> incorrect = train.getValues(x -> x.getVerdict() == FAIL);
-                    final OptionSelector<Solution, Solution> selector = new CacheOptionSelector<>(
-                            new ClosestPairSelector<>(unifier.unify(correct), metric),
-                            database,
+                    final OptionSelector<Solution, Solution> selector = new PrecomputedOptionSelector<>(
+                            unifier.unify(correct),
+                            metric,
                             Solution::getSolutionId,
-                            Solution::getSolutionId);
+                            assignments,
+                            knownOptions);
                     final FeaturesExtractor<Solution, Changes> generator = new ChangesExtractor(changeGenerator, selector);
                     final SolutionMarksHolderExpander expander =
                             new SolutionMarksHolderExpander(selector, changeGenerator, input, System.out);
                     for (ClusteringApproachTemplate template : approaches) {
                         final ClusteringApproach approach = template.createApproach(train, generator);
                         System.out.println("        Start approach: " + approach.getName());
+                        final DoubleFunction<Clusters<Solution>> clusterer = approach.buildClusters(incorrect,
+                                Arrays.stream(hacThresholds).max().orElse(0));
                         for (double threshold : hacThresholds) {
                             System.out.println("            Start threshold: " + threshold);
-                            final Clusterer<Solution> clusterer = approach.getClusterer(threshold);
-                            final Clusters<Solution> clusters = clusterer.buildClusters(incorrect);
+                            final Clusters<Solution> clusters = clusterer.apply(threshold);
                             for (var result : markClusters(clusters, holder, expander).entrySet()) {
                                 final Path path = results.resolve(approach.getName() + "_" + threshold)
                                         .resolve("step_" + i)
@@ -0,0 +1,120 @@
+package org.ml_methods_group.evaluation;
+
+import com.github.gumtreediff.tree.ITree;
+import org.ml_methods_group.cache.HashDatabase;
+import org.ml_methods_group.common.CommonUtils;
+import org.ml_methods_group.common.Dataset;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.Repository;
+import org.ml_methods_group.common.Solution;
+import org.ml_methods_group.common.ast.ASTUtils;
+import org.ml_methods_group.common.ast.changes.BasicChangeGenerator;
+import org.ml_methods_group.common.ast.changes.ChangeGenerator;
+import org.ml_methods_group.common.ast.generation.ASTGenerator;
+import org.ml_methods_group.common.ast.generation.CachedASTGenerator;
+import org.ml_methods_group.common.ast.normalization.NamesASTNormalizer;
+import org.ml_methods_group.common.metrics.functions.HeuristicChangesBasedDistanceFunction;
+import org.ml_methods_group.common.metrics.selectors.MetricIndexSelector;
+import org.ml_methods_group.common.preparation.Unifier;
+import org.ml_methods_group.common.preparation.basic.BasicUnifier;
+import org.ml_methods_group.common.preparation.basic.MinValuePicker;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector.Assignment;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector.KnownOptions;
+
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.ml_methods_group.common.Solution.Verdict.FAIL;
+import static org.ml_methods_group.common.Solution.Verdict.OK;
+import static org.ml_methods_group.common.serialization.ProtobufSerializationUtils.loadDataset;
+
+/**
+ * Compares closest options found by {@link MetricIndexSelector} with exact ones stored by
+ * {@link NearestOptionsPrecomputation}. Distance between changes isn't a strict metric, so even exact mode
+ * can miss the closest option, and this evaluation shows how many distances every slack saves and at what cost.
+ */
+public class MetricIndexEvaluation {
+
+    public static double[] slacks = {1, 1.1, 1.25, 1.5, 2};
+
+    public static String[] problems = {
+            "loggers",
+            "deserialization",
+            "reflection",
+            "factorial",
+    };
+
+    public static void main(String[] args) throws Exception {
+        try (final HashDatabase database = new HashDatabase(EvaluationInfo.PATH_TO_CACHE)) {
+            final ASTGenerator astGenerator = new CachedASTGenerator(new NamesASTNormalizer());
+            final ChangeGenerator changeGenerator = new BasicChangeGenerator(astGenerator);
+            final Unifier<Solution> unifier = new BasicUnifier<>(
+                    CommonUtils.compose(astGenerator::buildTree, ITree::getHash)::apply,
+                    CommonUtils.checkEquals(astGenerator::buildTree, ASTUtils::deepEquals),
+                    new MinValuePicker<>(Comparator.comparingInt(Solution::getSolutionId)));
+            final DistanceFunction<Solution> metric = new HeuristicChangesBasedDistanceFunction(changeGenerator);
+            for (String problem : problems) {
+                System.out.println("Start problem: " + problem);
+                final Path validation = EvaluationInfo.PATH_TO_DATASET.resolve(problem).resolve("validation");
+                final Repository<Integer, Assignment> assignments =
+                        PrecomputedOptionSelector.assignmentsRepository(database, problem);
+                final Repository<Long, KnownOptions> knownOptions =
+                        PrecomputedOptionSelector.knownOptionsRepository(database, problem);
+                final double[][] results = new double[slacks.length][4];
+                for (int i = 0; i < 10; i++) {
+                    System.out.println("    Start step: " + i);
+                    final Dataset train = loadDataset(validation.resolve("step_" + i).resolve("train.tmp"));
+                    final List<Solution> options = unifier.unify(train.getValues(x -> x.getVerdict() == OK));
+                    final List<Solution> incorrect = train.getValues(x -> x.getVerdict() == FAIL);
+                    final PrecomputedOptionSelector<Solution> exact = new PrecomputedOptionSelector<>(
+                            options, metric, Solution::getSolutionId, assignments, knownOptions);
+                    final double[] exactDistances = incorrect.parallelStream()
+                            .mapToDouble(value -> distanceToSelected(value, exact.selectOption(value).orElse(null),
+                                    metric))
+                            .toArray();
+                    for (int j = 0; j < slacks.length; j++) {
+                        // index is built once for all incorrect solutions of the step
+                        final MetricIndexSelector<Solution> selector =
+                                new MetricIndexSelector<>(options, metric, slacks[j]);
+                        final double[] distances = incorrect.parallelStream()
+                                .mapToDouble(value -> distanceToSelected(value,
+                                        selector.selectOption(value).orElse(null), metric))
+                                .toArray();
+                        int closest = 0;
+                        double excess = 0;
+                        for (int k = 0; k < distances.length; k++) {
+                            if (distances[k] <= exactDistances[k]) {
+                                closest++;
+                            } else {
+                                excess += distances[k] - exactDistances[k];
+                            }
+                        }
+                        final long evaluations = selector.getQueriesCount() * options.size();
+                        System.out.println("        Slack " + slacks[j] + ": saved "
+                                + selector.getSavedEvaluationsCount() + " / " + evaluations
+                                + " distances, closest found for " + closest + " / " + distances.length);
+                        results[j][0] += (double) selector.getSavedEvaluationsCount() / Math.max(evaluations, 1) / 10;
+                        results[j][1] += (double) closest / Math.max(distances.length, 1) / 10;
+                        results[j][2] += excess / Math.max(distances.length, 1) / 10;
+                        results[j][3] += (double) selector.getSavedEvaluationsCount() / 10;
+                    }
+                }
+                try (var out = new PrintWriter(EvaluationInfo.PATH_TO_RESULTS
+                        .resolve(problem + "_metric_index.csv").toFile())) {
+                    out.println("slack,saved_part,closest_part,mean_excess,saved_evaluations");
+                    for (int j = 0; j < slacks.length; j++) {
+                        out.println(slacks[j] + "," + results[j][0] + "," + results[j][1] + ","
+                                + results[j][2] + "," + results[j][3]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static double distanceToSelected(Solution value, Solution option, DistanceFunction<Solution> metric) {
+        return option == null ? Double.POSITIVE_INFINITY : metric.distance(value, option);
+    }
+}
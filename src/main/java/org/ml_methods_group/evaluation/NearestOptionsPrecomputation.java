@@ -0,0 +1,71 @@
+package org.ml_methods_group.evaluation;
+
+import com.github.gumtreediff.tree.ITree;
+import org.ml_methods_group.cache.HashDatabase;
+import org.ml_methods_group.common.CommonUtils;
+import org.ml_methods_group.common.Dataset;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.Repository;
+import org.ml_methods_group.common.Solution;
+import org.ml_methods_group.common.ast.ASTUtils;
+import org.ml_methods_group.common.ast.changes.BasicChangeGenerator;
+import org.ml_methods_group.common.ast.changes.ChangeGenerator;
+import org.ml_methods_group.common.ast.generation.ASTGenerator;
+import org.ml_methods_group.common.ast.generation.CachedASTGenerator;
+import org.ml_methods_group.common.ast.normalization.NamesASTNormalizer;
+import org.ml_methods_group.common.metrics.functions.HeuristicChangesBasedDistanceFunction;
+import org.ml_methods_group.common.preparation.Unifier;
+import org.ml_methods_group.common.preparation.basic.BasicUnifier;
+import org.ml_methods_group.common.preparation.basic.MinValuePicker;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector.Assignment;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector.KnownOptions;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import static org.ml_methods_group.common.Solution.Verdict.FAIL;
+import static org.ml_methods_group.common.Solution.Verdict.OK;
+import static org.ml_methods_group.common.serialization.ProtobufSerializationUtils.loadDataset;
+
+public class NearestOptionsPrecomputation {
+
+    public static String[] problems = {
+            "loggers",
+            "deserialization",
+            "reflection",
+            "factorial",
+    };
+
+    public static void main(String[] args) throws Exception {
+        try (final HashDatabase database = new HashDatabase(EvaluationInfo.PATH_TO_CACHE)) {
+            final ASTGenerator astGenerator = new CachedASTGenerator(new NamesASTNormalizer());
+            final ChangeGenerator changeGenerator = new BasicChangeGenerator(astGenerator);
+            final Unifier<Solution> unifier = new BasicUnifier<>(
+                    CommonUtils.compose(astGenerator::buildTree, ITree::getHash)::apply,
+                    CommonUtils.checkEquals(astGenerator::buildTree, ASTUtils::deepEquals),
+                    new MinValuePicker<>(Comparator.comparingInt(Solution::getSolutionId)));
+            final DistanceFunction<Solution> metric = new HeuristicChangesBasedDistanceFunction(changeGenerator);
+            for (String problem : problems) {
+                System.out.println("Start problem: " + problem);
+                final Path validation = EvaluationInfo.PATH_TO_DATASET.resolve(problem).resolve("validation");
+                // shared by all steps: every step starts from assignments of the previous ones
+                final Repository<Integer, Assignment> assignments =
+                        PrecomputedOptionSelector.assignmentsRepository(database, problem);
+                final Repository<Long, KnownOptions> knownOptions =
+                        PrecomputedOptionSelector.knownOptionsRepository(database, problem);
+                for (int i = 0; i < 10; i++) {
+                    System.out.println("    Start step: " + i);
+                    final Dataset train = loadDataset(validation.resolve("step_" + i).resolve("train.tmp"));
+                    final PrecomputedOptionSelector<Solution> selector = new PrecomputedOptionSelector<>(
+                            unifier.unify(train.getValues(x -> x.getVerdict() == OK)),
+                            metric,
+                            Solution::getSolutionId,
+                            assignments,
+                            knownOptions);
+                    selector.precompute(train.getValues(x -> x.getVerdict() == FAIL));
+                }
+            }
+        }
+    }
+}
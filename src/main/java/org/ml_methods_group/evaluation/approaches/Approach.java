@@ -8,11 +8,21 @@ public class Approach<F> {
     public final FeaturesExtractor<Solution, F> extractor;
     public final DistanceFunction<F> metric;
     public final String name;
+    public final boolean isMetric;
 
     public Approach(FeaturesExtractor<Solution, F> extractor, DistanceFunction<F> metric, String name) {
+        this(extractor, metric, name, false);
+    }
+
+    /**
+     * @param isMetric distance function satisfies triangle inequality, so index-based pruning is exact
+     */
+    public Approach(FeaturesExtractor<Solution, F> extractor, DistanceFunction<F> metric, String name,
+                    boolean isMetric) {
 //        this.extractor = new CachedFeaturesExtractor<>(extractor, Solution::getSolutionId);
         this.extractor = extractor;
         this.metric = metric;
         this.name = name;
+        this.isMetric = isMetric;
     }
 }
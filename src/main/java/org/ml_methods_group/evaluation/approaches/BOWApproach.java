@@ -120,7 +120,7 @@ public class BOWApproach {
                 .flatMap(List::stream)
                 .collect(Collectors.toList());
 
-        final HashMap<String, Integer> dict = BOWExtractor.mostCommon(extractors, changes, wordsLimit);
+        final HashMap<Long, Integer> dict = BOWExtractor.mostCommon(extractors, changes, wordsLimit);
         final FeaturesExtractor<Solution, BOWVector> extractor = generator.compose(
                 new BOWExtractor<>(dict, extractors).extend(Changes::getChanges));
         return new Approach<>(extractor, BOWExtractor::cosineDistance, "BOW" + wordsLimit);
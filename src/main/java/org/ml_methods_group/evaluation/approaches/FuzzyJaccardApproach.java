@@ -1,25 +1,23 @@
 package org.ml_methods_group.evaluation.approaches;
 
-import org.ml_methods_group.common.CommonUtils;
 import org.ml_methods_group.common.FeaturesExtractor;
 import org.ml_methods_group.common.Solution;
 import org.ml_methods_group.common.ast.changes.Changes;
-import org.ml_methods_group.common.ast.changes.CodeChange;
-import org.ml_methods_group.common.metrics.functions.CodeChangeSimilarityMetric;
+import org.ml_methods_group.common.extractors.EncodedCodeChangeExtractor;
+import org.ml_methods_group.common.extractors.EncodedCodeChangeExtractor.EncodedCodeChange;
+import org.ml_methods_group.common.extractors.PointwiseExtractor;
 import org.ml_methods_group.common.metrics.functions.FuzzyJaccardDistanceFunction;
 
-import java.io.Serializable;
 import java.util.List;
-import java.util.function.Function;
 
 public class FuzzyJaccardApproach {
 
-    public static final ApproachTemplate<Changes> TEMPLATE = (d, g) -> getDefaultApproach(g);
+    public static final ApproachTemplate<List<EncodedCodeChange>> TEMPLATE = (d, g) -> getDefaultApproach(g);
 
-    public static Approach<Changes> getDefaultApproach(FeaturesExtractor<Solution, Changes> generator) {
-        return new Approach<>(generator,
-                CommonUtils.metricFor(
-                        new FuzzyJaccardDistanceFunction<>(new CodeChangeSimilarityMetric()),
-                        (Function<Changes, List<CodeChange>> & Serializable) Changes::getChanges), "fuz_jac");
+    public static Approach<List<EncodedCodeChange>> getDefaultApproach(FeaturesExtractor<Solution, Changes> generator) {
+        final EncodedCodeChangeExtractor encoder = new EncodedCodeChangeExtractor();
+        return new Approach<>(generator.compose(Changes::getChanges)
+                .compose(new PointwiseExtractor<>(encoder)),
+                new FuzzyJaccardDistanceFunction<>(encoder.getSimilarityMetric()), "fuz_jac");
     }
 }
@@ -2,56 +2,66 @@ package org.ml_methods_group.evaluation.approaches;
 
 import org.ml_methods_group.common.FeaturesExtractor;
 import org.ml_methods_group.common.Solution;
+import org.ml_methods_group.common.Wrapper;
 import org.ml_methods_group.common.ast.changes.Changes;
 import org.ml_methods_group.common.ast.changes.CodeChange;
 import org.ml_methods_group.common.ast.changes.CodeChange.NodeContext;
 import org.ml_methods_group.common.extractors.HashExtractor;
-import org.ml_methods_group.common.extractors.PointwiseExtractor;
-import org.ml_methods_group.common.metrics.functions.JaccardDistanceFunction;
-
-import java.util.List;
+import org.ml_methods_group.common.extractors.TokenIdsExtractor;
+import org.ml_methods_group.common.metrics.functions.SortedJaccardDistanceFunction;
+import org.ml_methods_group.common.metrics.index.CandidatesIndex;
+import org.ml_methods_group.common.metrics.index.MinHashIndex;
 
 import static org.ml_methods_group.evaluation.approaches.BOWApproach.*;
 
 public class JaccardApproach {
-    public static Approach<List<String>> getDefaultApproach(FeaturesExtractor<Solution, Changes> generator) {
+    public static Approach<long[]> getDefaultApproach(FeaturesExtractor<Solution, Changes> generator) {
         final HashExtractor<NodeContext> hasher = HashExtractor.<NodeContext>builder()
                 .append("FTCC")
                 .hashComponent(NodeContext::getNode, FULL_NODE_STATE_HASH)
                 .hashComponent(NodeContext::getParent, TYPE_ONLY_NODE_STATE_HASH)
                 .hashComponent(NodeContext::getParentOfParent, TYPE_ONLY_NODE_STATE_HASH)
                 .build();
-        final HashExtractor<CodeChange> extractor = getCodeChangeHasher(hasher);
-        return new Approach<>(generator.compose(Changes::getChanges)
-                .compose(new PointwiseExtractor<>(extractor)),
-                new JaccardDistanceFunction<>(), "def_jac");
+        return getApproach(generator, getCodeChangeHasher(hasher), "def_jac");
     }
 
-    public static Approach<List<String>> getExtendedApproach(FeaturesExtractor<Solution, Changes> generator) {
+    public static Approach<long[]> getExtendedApproach(FeaturesExtractor<Solution, Changes> generator) {
         final HashExtractor<NodeContext> hasher = HashExtractor.<NodeContext>builder()
                 .append("FECC")
                 .hashComponent(NodeContext::getNode, FULL_NODE_STATE_HASH)
                 .hashComponent(NodeContext::getParent, FULL_NODE_STATE_HASH)
                 .hashComponent(NodeContext::getParentOfParent, TYPE_ONLY_NODE_STATE_HASH)
                 .build();
-        final HashExtractor<CodeChange> extractor = getCodeChangeHasher(hasher);
-        return new Approach<>(generator.compose(Changes::getChanges)
-                .compose(new PointwiseExtractor<>(extractor)),
-                new JaccardDistanceFunction<>(), "ext_jac");
+        return getApproach(generator, getCodeChangeHasher(hasher), "ext_jac");
     }
 
-    public static Approach<List<String>> getFullApproach(FeaturesExtractor<Solution, Changes> generator) {
+    public static Approach<long[]> getFullApproach(FeaturesExtractor<Solution, Changes> generator) {
         final HashExtractor<NodeContext> hasher = HashExtractor.<NodeContext>builder()
                 .append("FFCC")
                 .hashComponent(NodeContext::getNode, FULL_NODE_STATE_HASH)
                 .hashComponent(NodeContext::getParent, FULL_NODE_STATE_HASH)
                 .hashComponent(NodeContext::getParentOfParent, FULL_NODE_STATE_HASH)
                 .build();
-        final HashExtractor<CodeChange> extractor = getCodeChangeHasher(hasher);
+        return getApproach(generator, getCodeChangeHasher(hasher), "ful_jac");
+    }
+
+    private static Approach<long[]> getApproach(FeaturesExtractor<Solution, Changes> generator,
+                                                HashExtractor<CodeChange> extractor, String name) {
         return new Approach<>(generator.compose(Changes::getChanges)
-                .compose(new PointwiseExtractor<>(extractor)),
-                new JaccardDistanceFunction<>(), "ful_jac");
+                .compose(new TokenIdsExtractor<>(extractor)),
+                new SortedJaccardDistanceFunction(), name, true);
+    }
+
+    public static CandidatesIndex<Wrapper<long[], Solution>> getCandidatesIndex(int bands, int rows) {
+        return new MinHashIndex<>(Wrapper::getFeatures, bands, rows);
+    }
+
+    /**
+     * Pairs with similarity 0.5 (distance threshold 0.5) are proposed with probability 0.995
+     */
+    public static CandidatesIndex<Wrapper<long[], Solution>> getDefaultCandidatesIndex() {
+        return getCandidatesIndex(40, 3);
     }
 
-    public static final ApproachTemplate<List<String>> TEMPLATE = (d, g) -> getDefaultApproach(g);
+    public static final ApproachTemplate<long[]> TEMPLATE = (d, g) -> getDefaultApproach(g);
 }
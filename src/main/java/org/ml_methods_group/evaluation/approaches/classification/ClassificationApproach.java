@@ -4,20 +4,48 @@ import org.ml_methods_group.classification.classifiers.CompositeClassifier;
 import org.ml_methods_group.classification.classifiers.KNearestNeighbors;
 import org.ml_methods_group.classification.classifiers.NearestCluster;
 import org.ml_methods_group.common.*;
+import org.ml_methods_group.common.metrics.index.CandidatesIndex;
 import org.ml_methods_group.evaluation.approaches.Approach;
 
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 public class ClassificationApproach {
 
     private final Function<String, Classifier<Solution, String>> creator;
     private final String name;
+    private final boolean isMetric;
+    private final boolean neighboursOnly;
 
     public <T> ClassificationApproach(Approach<T> approach) {
-        this.creator = name -> new CompositeClassifier<>(
+        this(approach.name, approach, () -> null);
+    }
+
+    public <T> ClassificationApproach(String name, Approach<T> approach,
+                                      Supplier<CandidatesIndex<Wrapper<T, Solution>>> indexes) {
+        this.creator = classifierName -> new CompositeClassifier<>(
+                approach.extractor,
+                classifierForName(classifierName, approach, k -> new KNearestNeighbors<>(k,
+                        CommonUtils.metricFor(approach.metric, Wrapper<T, Solution>::getFeatures), indexes.get())));
+        this.name = name;
+        this.isMetric = approach.isMetric;
+        this.neighboursOnly = false;
+    }
+
+    /**
+     * Nearest neighbours are found by one scan of all dense vectors, so approach metric should be cosine distance
+     *
+     * @param singlePrecision vectors are stored as floats
+     */
+    public ClassificationApproach(String name, Approach<double[]> approach, boolean singlePrecision) {
+        this.creator = classifierName -> new CompositeClassifier<>(
                 approach.extractor,
-                classifierForName(name, approach));
-        this.name = approach.name;
+                classifierForName(classifierName, approach, k -> new KNearestNeighbors<>(k,
+                        Wrapper<double[], Solution>::getFeatures, singlePrecision)));
+        this.name = name;
+        this.isMetric = approach.isMetric;
+        this.neighboursOnly = true;
     }
 
     public Classifier<Solution, String> getClassifier(String classifierName) {
@@ -28,21 +56,38 @@ public class ClassificationApproach {
         return name;
     }
 
-    private static <T> Classifier<Wrapper<T, Solution>, String> classifierForName(String name, Approach<T> approach) {
+    /**
+     * Indexed classifiers rely on triangle inequality, so they are available only for true metrics.
+     * Dense approaches differ only in k nearest neighbours, so other classifiers are skipped
+     */
+    public boolean supports(String classifierName) {
+        if (neighboursOnly && !classifierName.startsWith("k-nearest")) {
+            return false;
+        }
+        return isMetric || !classifierName.equals("closest-cluster-indexed");
+    }
+
+    private static <T> Classifier<Wrapper<T, Solution>, String> classifierForName(
+            String name, Approach<T> approach, IntFunction<Classifier<Wrapper<T, Solution>, String>> neighbours) {
         final var metric = CommonUtils.metricFor(approach.metric, Wrapper<T, Solution>::getFeatures);
         switch (name) {
             case "closest-cluster":
                 return new NearestCluster<>(metric);
+            case "closest-cluster-indexed":
+                if (!approach.isMetric) {
+                    throw new IllegalArgumentException("Approach " + approach.name + " doesn't define a metric");
+                }
+                return new NearestCluster<>(metric, false, Integer.MAX_VALUE);
             case "k-nearest-3":
-                return new KNearestNeighbors<>(3, metric);
+                return neighbours.apply(3);
             case "k-nearest-5":
-                return new KNearestNeighbors<>(5, metric);
+                return neighbours.apply(5);
             case "k-nearest-10":
-                return new KNearestNeighbors<>(10, metric);
+                return neighbours.apply(10);
             case "k-nearest-15":
-                return new KNearestNeighbors<>(15, metric);
+                return neighbours.apply(15);
             case "k-nearest-20":
-                return new KNearestNeighbors<>(20, metric);
+                return neighbours.apply(20);
             default:
                 throw new IllegalArgumentException();
         }
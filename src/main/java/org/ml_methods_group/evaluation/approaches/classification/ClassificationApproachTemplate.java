@@ -2,10 +2,12 @@ package org.ml_methods_group.evaluation.approaches.classification;
 
 import org.ml_methods_group.common.*;
 import org.ml_methods_group.common.ast.changes.Changes;
+import org.ml_methods_group.common.metrics.index.CandidatesIndex;
 import org.ml_methods_group.evaluation.approaches.Approach;
 import org.ml_methods_group.evaluation.approaches.ApproachTemplate;
 
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 public class ClassificationApproachTemplate {
 
@@ -18,6 +20,25 @@ public class ClassificationApproachTemplate {
         };
     }
 
+    /**
+     * @param singlePrecision dense vectors of k nearest neighbours are stored as floats
+     */
+    public ClassificationApproachTemplate(ApproachTemplate<double[]> template, boolean singlePrecision) {
+        this.creator = (dataset, extractor) -> {
+            final Approach<double[]> approach = template.getApproach(dataset, extractor);
+            return new ClassificationApproach(approach.name + (singlePrecision ? "_dense_f32" : "_dense"),
+                    approach, singlePrecision);
+        };
+    }
+
+    public <T> ClassificationApproachTemplate(ApproachTemplate<T> template,
+                                              Supplier<CandidatesIndex<Wrapper<T, Solution>>> indexes) {
+        this.creator = (dataset, extractor) -> {
+            final Approach<T> approach = template.getApproach(dataset, extractor);
+            return new ClassificationApproach(approach.name + "_lsh", approach, indexes);
+        };
+    }
+
 
     public ClassificationApproach createApproach(Dataset train, FeaturesExtractor<Solution, Changes> generator) {
         return creator.apply(train, generator);
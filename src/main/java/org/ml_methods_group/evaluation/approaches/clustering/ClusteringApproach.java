@@ -1,29 +1,172 @@
 package org.ml_methods_group.evaluation.approaches.clustering;
 
+import org.ml_methods_group.clustering.clusterers.CanopyClusterer;
 import org.ml_methods_group.clustering.clusterers.CompositeClusterer;
 import org.ml_methods_group.clustering.clusterers.HAC;
+import org.ml_methods_group.clustering.clusterers.HDBSCAN;
+import org.ml_methods_group.clustering.clusterers.NNChainHAC;
+import org.ml_methods_group.clustering.clusterers.SparseHAC;
 import org.ml_methods_group.common.*;
+import org.ml_methods_group.common.metrics.index.CandidatesIndex;
+import org.ml_methods_group.common.metrics.store.MappedDistanceMatrix;
 import org.ml_methods_group.evaluation.approaches.Approach;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.DoubleFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class ClusteringApproach {
 
-    private final Function<Double, Clusterer<Solution>> creator;
+    private final Function<Double, CompositeClusterer<Solution, ?>> creator;
+    private final BiFunction<List<Solution>, Double, DoubleFunction<Clusters<Solution>>> builder;
     private final String name;
 
+    /**
+     * Complete-linkage engines with the same clusters: {@link HAC} builds dendrogram for all thresholds,
+     * {@link NNChainHAC} keeps condensed float matrix, {@link SparseHAC} keeps only close pairs
+     */
+    public enum Engine {
+        HAC, NN_CHAIN, SPARSE
+    }
+
     public <T> ClusteringApproach(String name, Approach<T> approach) {
+        this(name, approach, Engine.HAC);
+    }
+
+    public <T> ClusteringApproach(String name, Approach<T> approach, Engine engine) {
+        this.name = name;
+        this.creator = threshold -> new CompositeClusterer<>(approach.extractor, createEngine(
+                engine,
+                threshold,
+                CommonUtils.metricFor(approach.metric, Wrapper::getFeatures)));
+        this.builder = this::buildWithCreator;
+    }
+
+    /**
+     * Distances between features are evaluated once and stored in memory-mapped temporary file,
+     * then {@link SparseHAC} reads them for every threshold, so heap keeps only close pairs
+     *
+     * @param matrixDirectory directory for temporary files, should have enough space for all pairs
+     */
+    public <T> ClusteringApproach(String name, Approach<T> approach, Path matrixDirectory) {
+        this.name = name;
+        this.creator = threshold -> new CompositeClusterer<>(approach.extractor, new SparseHAC<>(
+                threshold,
+                1,
+                CommonUtils.metricFor(approach.metric, Wrapper::getFeatures)));
+        this.builder = (values, maxThreshold) -> {
+            final List<T> features = values.parallelStream()
+                    .map(approach.extractor::process)
+                    .collect(Collectors.toList());
+            try {
+                Files.createDirectories(matrixDirectory);
+                final Path path = Files.createTempFile(matrixDirectory, name, ".matrix");
+                // mapping stays valid after the file is closed and deleted, disk space is freed
+                // when the returned function and the mapping are collected
+                try (MappedDistanceMatrix matrix = MappedDistanceMatrix.build(features, approach.metric,
+                        path, maxThreshold)) {
+                    final DistanceFunction<Integer> metric = matrix.metric(Integer::intValue);
+                    final List<Integer> indexes = IntStream.range(0, values.size())
+                            .boxed()
+                            .collect(Collectors.toList());
+                    return threshold -> new SparseHAC<>(threshold, 1, metric)
+                            .buildClusters(indexes)
+                            .map(values::get);
+                } finally {
+                    try {
+                        Files.delete(path);
+                    } catch (IOException e) {
+                        // mapped file can't be deleted on some platforms
+                        path.toFile().deleteOnExit();
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    public <T> ClusteringApproach(String name, Approach<T> approach,
+                                  Supplier<CandidatesIndex<Wrapper<T, Solution>>> indexes) {
         this.name = name;
         this.creator = threshold -> new CompositeClusterer<>(approach.extractor, new HAC<>(
                 threshold,
                 1,
+                CommonUtils.metricFor(approach.metric, Wrapper::getFeatures),
+                indexes.get()));
+        this.builder = this::buildWithCreator;
+    }
+
+    /**
+     * Threshold limits mutual reachability distances of density-based clusterer
+     */
+    public <T> ClusteringApproach(String name, Approach<T> approach, int neighboursCount, int minClusterSize) {
+        this.name = name;
+        this.creator = threshold -> new CompositeClusterer<>(approach.extractor, new HDBSCAN<>(
+                threshold,
+                neighboursCount,
+                minClusterSize,
                 CommonUtils.metricFor(approach.metric, Wrapper::getFeatures)));
+        this.builder = this::buildWithCreator;
+    }
+
+    /**
+     * Solutions are split into canopies by cheap approach, then HAC runs inside every canopy
+     */
+    public <T, C> ClusteringApproach(String name, Approach<T> approach, Approach<C> cheapApproach,
+                                     double looseThreshold, double tightThreshold) {
+        this.name = name;
+        this.creator = threshold -> new CompositeClusterer<>(cheapApproach.extractor, new CanopyClusterer<>(
+                CommonUtils.metricFor(cheapApproach.metric, Wrapper::getFeatures),
+                looseThreshold,
+                tightThreshold,
+                () -> new CompositeClusterer<>(approach.extractor.extend(Wrapper<C, Solution>::getMeta), new HAC<>(
+                        threshold,
+                        1,
+                        CommonUtils.metricFor(approach.metric, Wrapper::getFeatures)))));
+        this.builder = this::buildWithCreator;
     }
 
     public Clusterer<Solution> getClusterer(double threshold) {
         return creator.apply(threshold);
     }
 
+    /**
+     * @return clusters for any threshold up to the given one. Hierarchical clusterers build
+     * single dendrogram for all thresholds, other clusterers run for every threshold
+     */
+    public DoubleFunction<Clusters<Solution>> buildClusters(List<Solution> values, double maxThreshold) {
+        return builder.apply(values, maxThreshold);
+    }
+
+    private DoubleFunction<Clusters<Solution>> buildWithCreator(List<Solution> values, double maxThreshold) {
+        final CompositeClusterer<Solution, ?> clusterer = creator.apply(maxThreshold);
+        if (clusterer.isHierarchical()) {
+            return clusterer.buildDendrogram(values)::cut;
+        }
+        return threshold -> getClusterer(threshold).buildClusters(values);
+    }
+
+    private static <F> Clusterer<F> createEngine(Engine engine, double threshold, DistanceFunction<F> metric) {
+        switch (engine) {
+            case HAC:
+                return new HAC<>(threshold, 1, metric);
+            case NN_CHAIN:
+                return new NNChainHAC<>(threshold, 1, metric);
+            case SPARSE:
+                return new SparseHAC<>(threshold, 1, metric);
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+
     public String getName() {
         return name;
     }
@@ -3,11 +3,15 @@ package org.ml_methods_group.evaluation.approaches.clustering;
 import org.ml_methods_group.common.Dataset;
 import org.ml_methods_group.common.FeaturesExtractor;
 import org.ml_methods_group.common.Solution;
+import org.ml_methods_group.common.Wrapper;
 import org.ml_methods_group.common.ast.changes.Changes;
+import org.ml_methods_group.common.metrics.index.CandidatesIndex;
 import org.ml_methods_group.evaluation.approaches.Approach;
 import org.ml_methods_group.evaluation.approaches.ApproachTemplate;
 
+import java.nio.file.Path;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 public class ClusteringApproachTemplate {
 
@@ -20,6 +24,48 @@ public class ClusteringApproachTemplate {
         };
     }
 
+    public <T> ClusteringApproachTemplate(ApproachTemplate<T> template, ClusteringApproach.Engine engine) {
+        this.creator = (dataset, extractor) -> {
+            final Approach<T> approach = template.getApproach(dataset, extractor);
+            return new ClusteringApproach(approach.name + "_" + engine.name().toLowerCase(), approach, engine);
+        };
+    }
+
+    /**
+     * @param matrixDirectory temporary distance matrices are stored in this directory
+     */
+    public <T> ClusteringApproachTemplate(ApproachTemplate<T> template, Path matrixDirectory) {
+        this.creator = (dataset, extractor) -> {
+            final Approach<T> approach = template.getApproach(dataset, extractor);
+            return new ClusteringApproach(approach.name + "_mapped", approach, matrixDirectory);
+        };
+    }
+
+    public <T> ClusteringApproachTemplate(ApproachTemplate<T> template,
+                                          Supplier<CandidatesIndex<Wrapper<T, Solution>>> indexes) {
+        this.creator = (dataset, extractor) -> {
+            final Approach<T> approach = template.getApproach(dataset, extractor);
+            return new ClusteringApproach(approach.name + "_lsh", approach, indexes);
+        };
+    }
+
+    public <T, C> ClusteringApproachTemplate(ApproachTemplate<T> template, ApproachTemplate<C> cheapTemplate,
+                                             double looseThreshold, double tightThreshold) {
+        this.creator = (dataset, extractor) -> {
+            final Approach<T> approach = template.getApproach(dataset, extractor);
+            final Approach<C> cheapApproach = cheapTemplate.getApproach(dataset, extractor);
+            return new ClusteringApproach(approach.name + "_canopy_" + cheapApproach.name, approach, cheapApproach,
+                    looseThreshold, tightThreshold);
+        };
+    }
+
+    public <T> ClusteringApproachTemplate(ApproachTemplate<T> template, int neighboursCount, int minClusterSize) {
+        this.creator = (dataset, extractor) -> {
+            final Approach<T> approach = template.getApproach(dataset, extractor);
+            return new ClusteringApproach(approach.name + "_hdbscan", approach, neighboursCount, minClusterSize);
+        };
+    }
+
 
     public ClusteringApproach createApproach(Dataset train, FeaturesExtractor<Solution, Changes> generator) {
         return creator.apply(train, generator);
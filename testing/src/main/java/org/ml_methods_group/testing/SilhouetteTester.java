@@ -2,9 +2,11 @@ package org.ml_methods_group.testing;
 
 import org.ml_methods_group.common.DistanceFunction;
 import org.ml_methods_group.common.Wrapper;
+import org.ml_methods_group.common.metrics.store.MappedDistanceMatrix;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.ToIntFunction;
 import java.util.stream.IntStream;
 
 public class SilhouetteTester<T, M> implements Tester<T, M> {
@@ -14,6 +16,15 @@ public class SilhouetteTester<T, M> implements Tester<T, M> {
         this.metric = metric;
     }
 
+    /**
+     * Distances are read from the store, which was built for exact distances
+     *
+     * @param indexer maps wrapper to its index in the list, which the matrix was built for
+     */
+    public SilhouetteTester(MappedDistanceMatrix matrix, ToIntFunction<Wrapper<T, M>> indexer) {
+        this(matrix.metric(indexer));
+    }
+
     @Override
     public SilhouetteResults test(List<List<Wrapper<T, M>>> clusters) {
         final double[] silhouettes = IntStream.range(0, clusters.size())
@@ -0,0 +1,198 @@
+package org.ml_methods_group.testing.selectors;
+
+import org.ml_methods_group.common.Database;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.OptionSelector;
+import org.ml_methods_group.common.Repository;
+import org.ml_methods_group.common.parallel.ParallelContext;
+import org.ml_methods_group.common.parallel.ParallelUtils;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Stores closest options together with distances to them. Unlike {@link CacheOptionSelector}, stored assignments
+ * survive changes of options: if options were added, value is compared only with new ones, and full search is
+ * needed only if its closest option was removed. Every stored set of options counts assignments, which refer to it,
+ * and is evicted when the last of them is updated.
+ */
+public class PrecomputedOptionSelector<V> implements OptionSelector<V, V> {
+
+    private final List<V> options;
+    private final Map<Integer, Integer> positions = new HashMap<>();
+    private final DistanceFunction<V> metric;
+    private final ToIntFunction<V> idExtractor;
+    private final long optionsHash;
+    private final Repository<Integer, Assignment> assignments;
+    private final Repository<Long, KnownOptions> knownOptions;
+    private final int[] ids;
+    private final Map<Long, Set<Integer>> knownOptionsCache = new HashMap<>();
+
+    /**
+     * Repositories should be opened once and shared by all selectors of the same problem,
+     * see {@link #assignmentsRepository} and {@link #knownOptionsRepository}
+     */
+    public PrecomputedOptionSelector(List<V> options, DistanceFunction<V> metric, ToIntFunction<V> idExtractor,
+                                     Repository<Integer, Assignment> assignments,
+                                     Repository<Long, KnownOptions> knownOptions) {
+        this.options = new ArrayList<>(options);
+        this.metric = metric;
+        this.idExtractor = idExtractor;
+        for (int i = 0; i < this.options.size(); i++) {
+            positions.put(idExtractor.applyAsInt(this.options.get(i)), i);
+        }
+        this.ids = positions.keySet().stream()
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .toArray();
+        this.optionsHash = hash(ids);
+        this.assignments = assignments;
+        this.knownOptions = knownOptions;
+    }
+
+    public static Repository<Integer, Assignment> assignmentsRepository(Database database, String name)
+            throws Exception {
+        return database.repositoryForName("nearest_option@" + name, Integer.class, Assignment.class);
+    }
+
+    public static Repository<Long, KnownOptions> knownOptionsRepository(Database database, String name)
+            throws Exception {
+        return database.repositoryForName("nearest_option_sets@" + name, Long.class, KnownOptions.class);
+    }
+
+    // 64-bit hash of sorted ids, every step is mixed, so similar sets don't collide
+    private static long hash(int[] sortedIds) {
+        long hash = mix(sortedIds.length);
+        for (int id : sortedIds) {
+            hash = mix(hash * 0x9e3779b97f4a7c15L + id);
+        }
+        return hash;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Updates assignments of all values in parallel
+     */
+    public void precompute(List<V> values) {
+        try (ParallelContext context = new ParallelContext()) {
+            context.runParallelWithConsumer(values,
+                    ParallelUtils::defaultListImplementation,
+                    (value, accumulator) -> selectOption(value),
+                    ParallelUtils::combineLists);
+        }
+    }
+
+    @Override
+    public Optional<V> selectOption(V value) {
+        final int valueId = idExtractor.applyAsInt(value);
+        if (valueId < 0) {
+            return search(value, null).map(this::getOption);
+        }
+        final Optional<Assignment> stored = assignments.loadValue(valueId);
+        if (stored.isPresent() && stored.get().optionsHash == optionsHash) {
+            final V option = getOption(stored.get());
+            if (option != null) {
+                return Optional.of(option);
+            }
+        }
+        // outdated assignment is updated incrementally, assignment to missing option is searched from scratch
+        final Optional<Assignment> assignment = search(value, stored.orElse(null));
+        assignment.ifPresent(x -> storeAssignment(valueId, x));
+        return assignment.map(this::getOption);
+    }
+
+    private void storeAssignment(int valueId, Assignment assignment) {
+        synchronized (knownOptionsCache) {
+            // reloaded under lock: released set should be the one, which is really replaced
+            final Optional<Assignment> replaced = assignments.loadValue(valueId);
+            assignments.storeValue(valueId, assignment);
+            final KnownOptions current = knownOptions.loadValue(optionsHash)
+                    .orElseGet(() -> new KnownOptions(ids, 0));
+            knownOptions.storeValue(optionsHash, new KnownOptions(current.ids, current.references + 1));
+            replaced.ifPresent(x -> release(x.optionsHash));
+        }
+    }
+
+    private void release(long hash) {
+        final Optional<KnownOptions> set = knownOptions.loadValue(hash);
+        if (!set.isPresent()) {
+            return;
+        }
+        if (set.get().references > 1) {
+            knownOptions.storeValue(hash, new KnownOptions(set.get().ids, set.get().references - 1));
+        } else {
+            knownOptions.removeValue(hash);
+            knownOptionsCache.remove(hash);
+        }
+    }
+
+    private V getOption(Assignment assignment) {
+        final Integer position = positions.get(assignment.optionId);
+        return position == null ? null : options.get(position);
+    }
+
+    private Optional<Assignment> search(V value, Assignment previous) {
+        final Set<Integer> known = previous == null ? null : getKnownOptions(previous.optionsHash);
+        final boolean incremental = known != null && positions.containsKey(previous.optionId);
+        int best = incremental ? positions.get(previous.optionId) : -1;
+        double bestDistance = incremental ? previous.distance : Double.POSITIVE_INFINITY;
+        for (int i = 0; i < options.size(); i++) {
+            final V option = options.get(i);
+            if (incremental && known.contains(idExtractor.applyAsInt(option))) {
+                continue;
+            }
+            final double distance = metric.distance(value, option, bestDistance);
+            if (best == -1 || distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best == -1 ? Optional.empty() : Optional.of(new Assignment(
+                idExtractor.applyAsInt(options.get(best)), bestDistance, optionsHash));
+    }
+
+    private Set<Integer> getKnownOptions(long hash) {
+        synchronized (knownOptionsCache) {
+            return knownOptionsCache.computeIfAbsent(hash, x -> knownOptions.loadValue(x)
+                    .map(set -> Arrays.stream(set.ids).boxed().collect(Collectors.toSet()))
+                    .orElse(null));
+        }
+    }
+
+    @Override
+    public Collection<V> getOptions() {
+        return Collections.unmodifiableList(options);
+    }
+
+    public static class Assignment implements Serializable {
+        private final int optionId;
+        private final double distance;
+        private final long optionsHash;
+
+        private Assignment(int optionId, double distance, long optionsHash) {
+            this.optionId = optionId;
+            this.distance = distance;
+            this.optionsHash = optionsHash;
+        }
+    }
+
+    public static class KnownOptions implements Serializable {
+        private final int[] ids;
+        private final int references;
+
+        private KnownOptions(int[] ids, int references) {
+            this.ids = ids;
+            this.references = references;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.ml_methods_group.testing;
+
+import org.junit.Test;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.Wrapper;
+import org.ml_methods_group.common.metrics.store.MappedDistanceMatrix;
+import org.ml_methods_group.testing.SilhouetteTester.SilhouetteResults;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class SilhouetteTesterTest {
+
+    private static final DistanceFunction<Wrapper<double[], Integer>> METRIC = (a, b) ->
+            Math.hypot(a.getFeatures()[0] - b.getFeatures()[0], a.getFeatures()[1] - b.getFeatures()[1]);
+
+    @Test
+    public void testMappedDistances() throws IOException {
+        final Random random = new Random(239);
+        final List<Wrapper<double[], Integer>> values = IntStream.range(0, 60)
+                .mapToObj(i -> new Wrapper<>(new double[]{(i % 3) * 5 + random.nextDouble(),
+                        random.nextDouble()}, i))
+                .collect(Collectors.toList());
+        final List<List<Wrapper<double[], Integer>>> clusters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final int cluster = i;
+            clusters.add(values.stream()
+                    .filter(x -> x.getMeta() % 3 == cluster)
+                    .collect(Collectors.toList()));
+        }
+        final SilhouetteResults expected = new SilhouetteTester<>(METRIC).test(clusters);
+        final Path path = Files.createTempFile("distances", ".bin");
+        try (MappedDistanceMatrix matrix = MappedDistanceMatrix.build(values, METRIC, path)) {
+            final SilhouetteResults results = new SilhouetteTester<double[], Integer>(matrix, Wrapper::getMeta)
+                    .test(clusters);
+            assertEquals(expected.getSilhouette(), results.getSilhouette(), 1e-5);
+            assertEquals(expected.getPositiveSilhouettesPart(), results.getPositiveSilhouettesPart(), 0);
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.ml_methods_group.testing.selectors;
+
+import org.junit.Test;
+import org.ml_methods_group.cache.HashDatabase;
+import org.ml_methods_group.common.Database;
+import org.ml_methods_group.common.DistanceFunction;
+import org.ml_methods_group.common.Repository;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector.Assignment;
+import org.ml_methods_group.testing.selectors.PrecomputedOptionSelector.KnownOptions;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrecomputedOptionSelectorTest {
+
+    private static class MemoryDatabase implements Database {
+        private final Map<String, Map<Object, Object>> repositories = new HashMap<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K, V> Repository<K, V> repositoryForName(String name, Class<K> keyClass, Class<V> valueClass) {
+            final Map<Object, Object> storage = repositories.computeIfAbsent(name,
+                    x -> Collections.synchronizedMap(new HashMap<>()));
+            return new Repository<>() {
+                @Override
+                public Optional<V> loadValue(K key) {
+                    return Optional.ofNullable((V) storage.get(key));
+                }
+
+                @Override
+                public void storeValue(K key, V value) {
+                    storage.put(key, value);
+                }
+
+                @Override
+                public void removeValue(K key) {
+                    storage.remove(key);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static int closest(List<Integer> options, int value) {
+        return options.stream()
+                .min(Comparator.comparingInt(x -> Math.abs(x - value)))
+                .map(x -> Math.abs(x - value))
+                .get();
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws Exception {
+        final MemoryDatabase database = new MemoryDatabase();
+        final Map<Object, Object> storedSets = database.repositories.computeIfAbsent("nearest_option_sets@test",
+                x -> Collections.synchronizedMap(new HashMap<>()));
+        final Repository<Integer, Assignment> assignments =
+                PrecomputedOptionSelector.assignmentsRepository(database, "test");
+        final Repository<Long, KnownOptions> knownOptions =
+                PrecomputedOptionSelector.knownOptionsRepository(database, "test");
+        final AtomicInteger evaluations = new AtomicInteger();
+        final DistanceFunction<Integer> metric = (a, b) -> {
+            evaluations.incrementAndGet();
+            return Math.abs(a - b);
+        };
+        final Random random = new Random(239);
+        final List<Integer> values = IntStream.range(0, 200)
+                .mapToObj(i -> random.nextInt(100000))
+                .distinct()
+                .collect(Collectors.toList());
+        final List<Integer> options = IntStream.range(0, 50)
+                .mapToObj(i -> random.nextInt(100000))
+                .distinct()
+                .collect(Collectors.toList());
+        new PrecomputedOptionSelector<>(options, metric, x -> x, assignments, knownOptions).precompute(values);
+        assertEquals(values.size() * options.size(), evaluations.get());
+
+        final List<Integer> extended = new ArrayList<>(options);
+        extended.addAll(Arrays.asList(-1000, 50000, 200000));
+        evaluations.set(0);
+        final PrecomputedOptionSelector<Integer> selector =
+                new PrecomputedOptionSelector<>(extended, metric, x -> x, assignments, knownOptions);
+        for (int value : values) {
+            assertEquals(closest(extended, value), Math.abs(selector.selectOption(value).get() - value));
+        }
+        assertEquals(values.size() * 3, evaluations.get());
+        assertEquals(1, storedSets.size());
+
+        final List<Integer> reduced = extended.subList(1, extended.size());
+        final PrecomputedOptionSelector<Integer> reducedSelector =
+                new PrecomputedOptionSelector<>(reduced, metric, x -> x, assignments, knownOptions);
+        for (int value : values) {
+            assertEquals(closest(reduced, value), Math.abs(reducedSelector.selectOption(value).get() - value));
+        }
+        assertEquals(1, storedSets.size());
+    }
+
+    @Test
+    public void testStepsShareHashDatabase() throws Exception {
+        final Path directory = Files.createTempDirectory("precomputed");
+        final AtomicInteger evaluations = new AtomicInteger();
+        final DistanceFunction<Integer> metric = (a, b) -> {
+            evaluations.incrementAndGet();
+            return Math.abs(a - b);
+        };
+        final List<Integer> values = IntStream.range(0, 100)
+                .mapToObj(i -> i * 1000 + 7)
+                .collect(Collectors.toList());
+        final List<Integer> first = IntStream.range(0, 20)
+                .mapToObj(i -> i * 5000)
+                .collect(Collectors.toList());
+        final List<Integer> second = new ArrayList<>(first);
+        second.addAll(Arrays.asList(33000, 66000));
+        try {
+            try (HashDatabase database = new HashDatabase(directory)) {
+                final Repository<Integer, Assignment> assignments =
+                        PrecomputedOptionSelector.assignmentsRepository(database, "test");
+                final Repository<Long, KnownOptions> knownOptions =
+                        PrecomputedOptionSelector.knownOptionsRepository(database, "test");
+                new PrecomputedOptionSelector<>(first, metric, x -> x, assignments, knownOptions).precompute(values);
+                assertEquals(values.size() * first.size(), evaluations.get());
+                evaluations.set(0);
+                new PrecomputedOptionSelector<>(second, metric, x -> x, assignments, knownOptions).precompute(values);
+                assertEquals(values.size() * 2, evaluations.get());
+            }
+            evaluations.set(0);
+            try (HashDatabase database = new HashDatabase(directory)) {
+                final PrecomputedOptionSelector<Integer> selector = new PrecomputedOptionSelector<>(second, metric,
+                        x -> x, PrecomputedOptionSelector.assignmentsRepository(database, "test"),
+                        PrecomputedOptionSelector.knownOptionsRepository(database, "test"));
+                for (int value : values) {
+                    assertEquals(closest(second, value), Math.abs(selector.selectOption(value).get() - value));
+                }
+                assertEquals(0, evaluations.get());
+            }
+        } finally {
+            for (File file : Objects.requireNonNull(directory.toFile().listFiles())) {
+                Files.delete(file.toPath());
+            }
+            Files.delete(directory);
+        }
+    }
+}